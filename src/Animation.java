@@ -0,0 +1,49 @@
+// The frames of one animated character, sliced from its sprite sheet once
+// and shared by everything drawn with it. Which frame to draw is worked out
+// at draw time from the tick, the entity's phase and its direction, so an
+// animated entity carries no timer and nothing is updated per tick.
+//
+// Frames are held facing by facing: facing f, frame i is at f * count + i.
+// Facings follow the movement directions (0 up, then clockwise); a sheet
+// with a single facing is used for every direction.
+public class Animation {
+    private final Sprite[] frames;
+    private final int count;
+    private final int facings;
+    private final int ticksPerFrame;
+
+    public Animation(Sprite[] frames, int count, int facings, int ticksPerFrame) {
+        if (frames.length != count * facings) {
+            throw new IllegalArgumentException("Expected " + count * facings + " frames, got " + frames.length);
+        }
+        this.frames = frames;
+        this.count = count;
+        this.facings = facings;
+        this.ticksPerFrame = ticksPerFrame;
+    }
+
+    // Frame for the given tick. Entities with different phases step through
+    // the cycle out of sync; standing entities show the first frame.
+    public Sprite getFrame(long tick, int phase, int direction, boolean moving) {
+        int facing = facings == 1 ? 0 : direction;
+        int frame = moving ? (int) (((tick + phase) / ticksPerFrame) % count) : 0;
+        return frames[facing * count + frame];
+    }
+
+    // First frame of the first facing, for callers that draw a still image
+    public Sprite getSprite() {
+        return frames[0];
+    }
+
+    public int getFrameCount() {
+        return count;
+    }
+
+    public int getFacings() {
+        return facings;
+    }
+
+    public int getTicksPerFrame() {
+        return ticksPerFrame;
+    }
+}
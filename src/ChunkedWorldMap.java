@@ -0,0 +1,260 @@
+import java.awt.Rectangle;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// A map too large to generate up front. The world is cut into 32x32-tile
+// chunks that are generated from the seed the first time they are needed,
+// kept in an LRU cache bounded by a memory budget, and dropped again when
+// they are far from the player. Tiles never change, so a dropped chunk is
+// simply regenerated, identically, if the player comes back.
+//
+// Chunks within activeRadius chunks of the player are always loaded. Past
+// the budget, chunks outside that square are dropped least recently used
+// first, but empty chunks go before chunks that still hold enemies, so
+// enemies away from the player keep moving while memory allows. Enemies
+// standing in a chunk that is not loaded are frozen, and unloaded chunks
+// count as unwalkable so nothing walks into them.
+public class ChunkedWorldMap implements WorldMap {
+    public static final int CHUNK_SHIFT = 5;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // tiles
+    private static final int TILE_SHIFT = 4; // 16px tiles
+    private static final int LOCAL_MASK = CHUNK_SIZE - 1;
+
+    private final int width;
+    private final int height;
+    private final int chunkColumns;
+    private final int chunkRows;
+    private final long seed;
+    private final int activeRadius;
+    private final long budgetBytes;
+    private final int maxResidentChunks;
+
+    // Written only by stream(); read by update workers between their
+    // fork/join and by the Swing thread, which may see a slightly stale
+    // entry but never a partly built chunk (Chunk fields are final).
+    private final Chunk[] resident;
+    // Least recently used first; simulation thread only
+    private final LinkedHashMap<Integer, Chunk> lru = new LinkedHashMap<>(64, 0.75f, true);
+    private volatile int residentCount = 0;
+    // Chunk the active square is centered on; simulation thread only
+    private int focusChunkX = -1;
+    private int focusChunkY = -1;
+    private long generatedChunks = 0;
+
+    public ChunkedWorldMap(int width, int height, long seed, int activeRadius, long budgetBytes) {
+        this.width = width;
+        this.height = height;
+        this.chunkColumns = (width + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+        this.chunkRows = (height + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+        this.seed = seed;
+        this.activeRadius = activeRadius;
+        this.budgetBytes = budgetBytes;
+        int activeChunks = (2 * activeRadius + 1) * (2 * activeRadius + 1);
+        this.maxResidentChunks = (int) Math.max(activeChunks, Math.min(Integer.MAX_VALUE, budgetBytes / Chunk.BYTES));
+        this.resident = new Chunk[Math.multiplyExact(chunkColumns, chunkRows)];
+    }
+
+    private static final class Chunk {
+        // Approximate heap cost: two arrays plus the chunk object itself
+        static final long BYTES = 16 + CHUNK_SIZE * CHUNK_SIZE + 16 + CHUNK_SIZE * CHUNK_SIZE / 8 + 24;
+
+        final byte[] cells = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        final long[] walkable = new long[CHUNK_SIZE * CHUNK_SIZE / 64];
+
+        Chunk(ChunkedWorldMap map, int chunkX, int chunkY) {
+            for (int localY = 0; localY < CHUNK_SIZE; localY++) {
+                for (int localX = 0; localX < CHUNK_SIZE; localX++) {
+                    int tileX = (chunkX << CHUNK_SHIFT) + localX;
+                    int tileY = (chunkY << CHUNK_SHIFT) + localY;
+                    TileType type = map.generate(tileX, tileY);
+                    int cell = (localY << CHUNK_SHIFT) + localX;
+                    cells[cell] = type.getId();
+                    if (type.isWalkable()) {
+                        walkable[cell >>> 6] |= 1L << cell;
+                    }
+                }
+            }
+        }
+    }
+
+    // The tile at (tileX, tileY), as a pure function of the seed
+    private TileType generate(int tileX, int tileY) {
+        if (tileX <= 0 || tileY <= 0 || tileX >= width - 1 || tileY >= height - 1) {
+            return TileType.WALL;
+        }
+
+        // About one chunk in four holds a round lake, except where the
+        // player starts
+        int chunkX = tileX >> CHUNK_SHIFT;
+        int chunkY = tileY >> CHUNK_SHIFT;
+        boolean startChunk = chunkX == (width / 2) >> CHUNK_SHIFT && chunkY == (height / 2) >> CHUNK_SHIFT;
+        long hash = GameRandom.mix(seed ^ GameRandom.mix(((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL)));
+        if (!startChunk && (hash & 3) == 0) {
+            int centerX = 8 + (int) ((hash >>> 8) & 15);
+            int centerY = 8 + (int) ((hash >>> 16) & 15);
+            int radius = 3 + (int) ((hash >>> 24) % 5);
+            int dx = (tileX & LOCAL_MASK) - centerX;
+            int dy = (tileY & LOCAL_MASK) - centerY;
+            if (dx * dx + dy * dy <= radius * radius) {
+                return TileType.WATER;
+            }
+        }
+
+        return (tileX + tileY) % 5 == 0 ? TileType.GRASS : TileType.DIRT;
+    }
+
+    @Override
+    public boolean stream(int x, int y, Occupancy occupancy) {
+        int centerX = clamp(x >> (TILE_SHIFT + CHUNK_SHIFT), chunkColumns);
+        int centerY = clamp(y >> (TILE_SHIFT + CHUNK_SHIFT), chunkRows);
+        if (centerX == focusChunkX && centerY == focusChunkY) {
+            return false;
+        }
+        focusChunkX = centerX;
+        focusChunkY = centerY;
+
+        // Load (or touch) everything in the active square
+        for (int chunkY = Math.max(0, centerY - activeRadius); chunkY <= Math.min(chunkRows - 1, centerY + activeRadius); chunkY++) {
+            for (int chunkX = Math.max(0, centerX - activeRadius); chunkX <= Math.min(chunkColumns - 1, centerX + activeRadius); chunkX++) {
+                int index = chunkY * chunkColumns + chunkX;
+                if (lru.get(index) == null) {
+                    Chunk chunk = new Chunk(this, chunkX, chunkY);
+                    generatedChunks++;
+                    lru.put(index, chunk);
+                    resident[index] = chunk;
+                }
+            }
+        }
+
+        // Then drop the least recently used chunks outside it until the
+        // cache fits the budget again: empty ones first, and only then
+        // ones with enemies in them, which freezes those enemies
+        evict(occupancy);
+        if (lru.size() > maxResidentChunks) {
+            evict(null);
+        }
+        residentCount = lru.size();
+        return true;
+    }
+
+    // With occupancy == null, chunks are dropped whether or not they hold
+    // enemies
+    private void evict(Occupancy occupancy) {
+        Iterator<Integer> eldest = lru.keySet().iterator();
+        while (lru.size() > maxResidentChunks && eldest.hasNext()) {
+            int index = eldest.next();
+            int chunkX = index % chunkColumns;
+            int chunkY = index / chunkColumns;
+            if (!isInActiveSquare(chunkX, chunkY) && (occupancy == null
+                    || !occupancy.isOccupied(chunkX << CHUNK_SHIFT, chunkY << CHUNK_SHIFT, CHUNK_SIZE))) {
+                eldest.remove();
+                resident[index] = null;
+            }
+        }
+    }
+
+    private boolean isInActiveSquare(int chunkX, int chunkY) {
+        return Math.abs(chunkX - focusChunkX) <= activeRadius && Math.abs(chunkY - focusChunkY) <= activeRadius;
+    }
+
+    private static int clamp(int value, int limit) {
+        return value < 0 ? 0 : (value >= limit ? limit - 1 : value);
+    }
+
+    private Chunk chunkAt(int tileX, int tileY) {
+        if (Integer.compareUnsigned(tileX, width) >= 0 || Integer.compareUnsigned(tileY, height) >= 0) {
+            return null;
+        }
+        return resident[(tileY >> CHUNK_SHIFT) * chunkColumns + (tileX >> CHUNK_SHIFT)];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public TileType getType(int tileX, int tileY) {
+        Chunk chunk = chunkAt(tileX, tileY);
+        if (chunk == null) {
+            return null;
+        }
+        return TileType.byId(chunk.cells[((tileY & LOCAL_MASK) << CHUNK_SHIFT) + (tileX & LOCAL_MASK)]);
+    }
+
+    @Override
+    public boolean isWalkable(int x, int y) {
+        int tileX = x >> TILE_SHIFT;
+        int tileY = y >> TILE_SHIFT;
+        Chunk chunk = chunkAt(tileX, tileY);
+        if (chunk == null) {
+            return false;
+        }
+        int cell = ((tileY & LOCAL_MASK) << CHUNK_SHIFT) + (tileX & LOCAL_MASK);
+        return ((chunk.walkable[cell >>> 6] >>> cell) & 1L) != 0;
+    }
+
+    @Override
+    public boolean canOccupy(int x, int y, int size) {
+        int right = x + size - 1;
+        int bottom = y + size - 1;
+        return isWalkable(x, y) & isWalkable(right, y) & isWalkable(x, bottom) & isWalkable(right, bottom);
+    }
+
+    @Override
+    public boolean isActive(int x, int y) {
+        return chunkAt(x >> TILE_SHIFT, y >> TILE_SHIFT) != null;
+    }
+
+    @Override
+    public Rectangle getSpawnArea() {
+        int span = (2 * activeRadius + 1) << CHUNK_SHIFT;
+        Rectangle active = new Rectangle((focusChunkX - activeRadius) << CHUNK_SHIFT,
+                (focusChunkY - activeRadius) << CHUNK_SHIFT, span, span);
+        return active.intersection(new Rectangle(1, 1, width - 2, height - 2));
+    }
+
+    @Override
+    public long[] countTypes() {
+        long[] counts = new long[TileType.count()];
+        for (Chunk chunk : resident) {
+            if (chunk != null) {
+                for (byte cell : chunk.cells) {
+                    counts[cell]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public long getBytes() {
+        return residentCount * Chunk.BYTES;
+    }
+
+    // Everything needed to rebuild this map, see WorldSnapshot
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getActiveRadius() {
+        return activeRadius;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public int getResidentChunks() {
+        return residentCount;
+    }
+
+    public long getGeneratedChunks() {
+        return generatedChunks;
+    }
+}
@@ -1,50 +1,165 @@
-public class Enemy extends GameObject {
-    private final String type;
-    private int moveDirection = (int)(Math.random() * 4); // 0: up, 1: right, 2: down, 3: left
-    private int moveCooldown = 0;
-    private static final int SPEED = 2;
+import java.awt.Graphics;
 
-    public Enemy(int x, int y, String type) {
-        super(x, y, SpriteFactory.getSprite("sprites/" + type + ".png", type));
-        this.type = type;
+// Lightweight handle over one slot of an EnemyStore. The state itself lives
+// in the store; this class only knows how to read, move and draw it. Speed,
+// size and the other per-kind constants come from the enemy's EnemyType.
+public class Enemy {
+    private final EnemyStore store;
+    private final int index;
+
+    public Enemy(EnemyStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getX() {
+        return store.getX(index);
+    }
+
+    public int getY() {
+        return store.getY(index);
+    }
+
+    public EnemyType getType() {
+        return EnemyType.byId(store.getTypeId(index));
     }
 
-    public void move(GameWorld world) {
+    public void draw(Graphics g) {
+        store.getSprite(index).draw(g, store.getX(index), store.getY(index));
+    }
+
+    public void move(GameWorld world, RandomStream random) {
+        if (move(store, index, world, null, random)) {
+            world.getSpatialGrid().move(index, getX(), getY());
+        }
+    }
+
+    // Moves one enemy, chasing the player where the field (if any) reaches
+    // and walking at random elsewhere. Returns true when it crossed into
+    // another tile; the caller then owns updating the spatial grid, which is
+    // not thread-safe.
+    public static boolean move(EnemyStore store, int index, GameWorld world, FlowField field, RandomStream random) {
+        return commit(store, index, plan(store, index, world, field, random, false));
+    }
+
+    // Bits of a move plan, see plan() and EnemyCollisions
+    static final int PLAN_DIRECTION = 3; // direction of the move
+    static final int PLAN_MOVING = 1 << 2; // the target tile is walkable
+    static final int PLAN_BLOCKED = 1 << 3; // set by EnemyCollisions
+    static final int PLAN_TURNED = 1 << 4; // turned at random this tick
+    static final int PLAN_BLOCKED_SHIFT = 5; // direction to take if blocked
+    static final int PLAN_CHASING = 1 << 7; // steered by a FlowField
+
+    // First half of a move: everything except changing the position, which
+    // commit() does once collisions have had a say. Only this enemy's slot
+    // is written, and its position is left as it was at the start of the
+    // tick. With collisions the direction to turn to if blocked is drawn up
+    // front, so the random sequence does not depend on other enemies.
+    static int plan(EnemyStore store, int index, GameWorld world, FlowField field, RandomStream random,
+                    boolean collisions) {
+        int plan = 0;
+
         // Decrease cooldown
+        int moveCooldown = store.getCooldown(index);
         if (moveCooldown > 0) {
-            moveCooldown--;
-            return;
+            store.setCooldown(index, moveCooldown - 1);
+            return plan;
         }
 
-        // Try to move in current direction
-        int newX = x;
-        int newY = y;
-        
-        switch (moveDirection) {
-            case 0: newY -= SPEED; break; // Up
-            case 1: newX += SPEED; break; // Right
-            case 2: newY += SPEED; break; // Down
-            case 3: newX -= SPEED; break; // Left
+        EnemyType type = EnemyType.byId(store.getTypeId(index));
+        if (field != null) {
+            int direction = field.steer(store.getX(index), store.getY(index), type);
+            if (direction != FlowField.NONE) {
+                return chase(store, index, world, type, direction);
+            }
         }
 
+        // Try to move in current direction
+        int direction = store.getDirection(index);
+        int newX = store.getX(index) + deltaX(direction, type.getSpeed());
+        int newY = store.getY(index) + deltaY(direction, type.getSpeed());
+
         // Check if new position is valid (checking all corners of the sprite)
-        if (world.isWalkable(newX, newY) && 
-            world.isWalkable(newX + 15, newY) && 
-            world.isWalkable(newX, newY + 15) && 
-            world.isWalkable(newX + 15, newY + 15)) {
-            // Move to new position
-            x = newX;
-            y = newY;
+        if (world.canOccupy(newX, newY, type.getSize())) {
+            plan = PLAN_MOVING | direction;
+            if (collisions) {
+                plan |= random.nextInt(4) << PLAN_BLOCKED_SHIFT;
+            }
         } else {
             // Change direction randomly if hit obstacle
-            moveDirection = (int)(Math.random() * 4);
-            moveCooldown = 10; // Wait a bit before moving in new direction
+            store.setDirection(index, random.nextInt(4));
+            store.setCooldown(index, type.getWallCooldown()); // Wait a bit before moving in new direction
         }
 
         // Randomly change direction occasionally
-        if (Math.random() < 0.01) {
-            moveDirection = (int)(Math.random() * 4);
-            moveCooldown = 20;
+        if (random.nextDouble() < type.getTurnChance()) {
+            store.setDirection(index, random.nextInt(4));
+            store.setCooldown(index, type.getTurnCooldown());
+            plan |= PLAN_TURNED;
         }
+        return plan;
+    }
+
+    // Follows the field without drawing any random numbers. Chasers wait
+    // instead of turning when something is in the way, see commit().
+    private static int chase(EnemyStore store, int index, GameWorld world, EnemyType type, int direction) {
+        if (direction == FlowField.HOLD) {
+            return 0;
+        }
+        store.setDirection(index, direction);
+        int newX = store.getX(index) + deltaX(direction, type.getSpeed());
+        int newY = store.getY(index) + deltaY(direction, type.getSpeed());
+        // Only fails right next to the player, where the last steps go
+        // straight for its position rather than along tiles
+        if (!world.canOccupy(newX, newY, type.getSize())) {
+            return 0;
+        }
+        return PLAN_MOVING | PLAN_CHASING | direction;
+    }
+
+    // Second half: moves to the planned position, or reacts like hitting a
+    // wall if the move was blocked. Returns true when it crossed a tile.
+    static boolean commit(EnemyStore store, int index, int plan) {
+        if ((plan & PLAN_MOVING) == 0) {
+            return false;
+        }
+        EnemyType type = EnemyType.byId(store.getTypeId(index));
+        if ((plan & PLAN_BLOCKED) != 0) {
+            if ((plan & PLAN_CHASING) != 0) {
+                // Keep heading for the player, but back off like a wanderer
+                // at a wall instead of paying for a collision check every
+                // tick. The phase staggers the retries so a blocked crowd
+                // does not retry all at once.
+                int wait = type.getWallCooldown();
+                store.setCooldown(index, wait / 2 + store.getPhase(index) % (wait / 2 + 1));
+            } else if ((plan & PLAN_TURNED) == 0) {
+                // A random turn this tick takes precedence, as it would for
+                // a wall
+                store.setDirection(index, (plan >>> PLAN_BLOCKED_SHIFT) & 3);
+                store.setCooldown(index, type.getWallCooldown());
+            }
+            return false;
+        }
+
+        int x = store.getX(index);
+        int y = store.getY(index);
+        int direction = plan & PLAN_DIRECTION;
+        int newX = x + deltaX(direction, type.getSpeed());
+        int newY = y + deltaY(direction, type.getSpeed());
+        store.setPosition(index, newX, newY);
+        return (newX >> 4) != (x >> 4) || (newY >> 4) != (y >> 4);
+    }
+
+    // Offset of a step of the given length; direction 0 is up, then clockwise
+    static int deltaX(int direction, int speed) {
+        return direction == 1 ? speed : (direction == 3 ? -speed : 0);
+    }
+
+    static int deltaY(int direction, int speed) {
+        return direction == 2 ? speed : (direction == 0 ? -speed : 0);
     }
 }
@@ -0,0 +1,133 @@
+import java.util.function.IntPredicate;
+
+// Keeps enemies from walking into each other and into the player. Moves
+// are planned for every enemy first (Enemy.plan), then each planned move is
+// checked here against the positions everyone had at the start of the tick,
+// then the moves that passed are committed. Every check only reads that
+// start-of-tick state, so chunks can be checked in parallel and the result
+// does not depend on the thread count.
+//
+// A move is blocked when the enemy's box (EnemyType size) would newly
+// overlap:
+//   - another enemy where it stands now (boxes that already overlap may
+//     move apart, or through each other, rather than stay stuck);
+//   - the target of a lower-indexed enemy moving into the same space, so
+//     two enemies never step into each other in the same tick;
+//   - the player.
+// Blocked enemies react as if they had hit a wall.
+//
+// The broad phase is the spatial grid: only enemies near the strip a move
+// sweeps (widened by the longest step of any type, for the targets of
+// others) are looked at. In a crowd, such as a hundred thousand enemies on
+// a small map, that can be hundreds per move, so a move with more than
+// MAX_NEARBY enemies in the cells it would scan is blocked from the cell
+// counts alone: that deep in a crowd it would almost always be blocked
+// anyway, and no check walks more than MAX_NEARBY enemies.
+public class EnemyCollisions {
+    static final int MAX_NEARBY = 64;
+
+    private final EnemyStore enemies;
+    private final SpatialGrid grid;
+
+    public EnemyCollisions(EnemyStore enemies, SpatialGrid grid) {
+        this.enemies = enemies;
+        this.grid = grid;
+    }
+
+    // Marks blocked moves in plans[start, end) with Enemy.PLAN_BLOCKED and
+    // returns how many there were. Safe to run for several ranges at once.
+    public int resolve(byte[] plans, int start, int end, int playerX, int playerY) {
+        Check check = new Check(plans);
+        int blocked = 0;
+        for (int i = start; i < end; i++) {
+            int plan = plans[i];
+            if ((plan & Enemy.PLAN_MOVING) == 0) {
+                continue;
+            }
+            EnemyType type = EnemyType.byId(enemies.getTypeId(i));
+            int size = type.getSize();
+            int x = enemies.getX(i);
+            int y = enemies.getY(i);
+            int direction = plan & Enemy.PLAN_DIRECTION;
+            int targetX = x + Enemy.deltaX(direction, type.getSpeed());
+            int targetY = y + Enemy.deltaY(direction, type.getSpeed());
+
+            boolean hitsPlayer = overlaps(targetX, targetY, size, playerX, playerY, Player.SIZE)
+                    && !overlaps(x, y, size, playerX, playerY, Player.SIZE);
+            if (hitsPlayer || check.hitsEnemy(i, x, y, size, targetX, targetY)) {
+                plans[i] = (byte) (plan | Enemy.PLAN_BLOCKED);
+                blocked++;
+            }
+        }
+        return blocked;
+    }
+
+    // Whether square boxes of the given sizes at (ax, ay) and (bx, by) overlap
+    static boolean overlaps(int ax, int ay, int aSize, int bx, int by, int bSize) {
+        return ax < bx + bSize && bx < ax + aSize && ay < by + bSize && by < ay + aSize;
+    }
+
+    // Narrow phase for one moving enemy; one per resolve() call so the
+    // grid query does not allocate per enemy
+    private final class Check implements IntPredicate {
+        private final byte[] plans;
+        private int index, x, y, size, targetX, targetY;
+
+        Check(byte[] plans) {
+            this.plans = plans;
+        }
+
+        boolean hitsEnemy(int index, int x, int y, int size, int targetX, int targetY) {
+            this.index = index;
+            this.x = x;
+            this.y = y;
+            this.size = size;
+            this.targetX = targetX;
+            this.targetY = targetY;
+
+            // The strip the box sweeps into: the target box minus the current one
+            int x0 = targetX > x ? x + size : targetX;
+            int x1 = targetX < x ? x - 1 : targetX + size - 1;
+            int y0 = targetY > y ? y + size : targetY;
+            int y1 = targetY < y ? y - 1 : targetY + size - 1;
+            int margin = EnemyType.maxSpeed();
+            x0 -= margin;
+            y0 -= margin;
+            x1 += margin;
+            y1 += margin;
+            if (grid.countNear(x0, y0, x1, y1, MAX_NEARBY + 1) > MAX_NEARBY) {
+                return true; // too crowded to look
+            }
+            return grid.anyInRect(x0, y0, x1, y1, this);
+        }
+
+        @Override
+        public boolean test(int other) {
+            if (other == index) {
+                return false;
+            }
+            EnemyType otherType = EnemyType.byId(enemies.getTypeId(other));
+            int otherSize = otherType.getSize();
+            int otherX = enemies.getX(other);
+            int otherY = enemies.getY(other);
+            if (overlaps(x, y, size, otherX, otherY, otherSize)) {
+                return false; // already touching
+            }
+            if (overlaps(targetX, targetY, size, otherX, otherY, otherSize)) {
+                return true;
+            }
+
+            // Both stepping into the same space: the lower index goes first,
+            // unless its own step runs into this enemy and gets it blocked
+            int otherPlan = plans[other];
+            if (other > index || (otherPlan & Enemy.PLAN_MOVING) == 0) {
+                return false;
+            }
+            int otherDirection = otherPlan & Enemy.PLAN_DIRECTION;
+            int otherTargetX = otherX + Enemy.deltaX(otherDirection, otherType.getSpeed());
+            int otherTargetY = otherY + Enemy.deltaY(otherDirection, otherType.getSpeed());
+            return overlaps(targetX, targetY, size, otherTargetX, otherTargetY, otherSize)
+                    && !overlaps(otherTargetX, otherTargetY, otherSize, x, y, size);
+        }
+    }
+}
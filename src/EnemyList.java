@@ -0,0 +1,39 @@
+import java.util.AbstractList;
+
+// Read-only List view over the first `size` enemies of a store. Elements
+// are handles created on access, so building the view copies nothing.
+public class EnemyList extends AbstractList<Enemy> {
+    private final EnemyStore store;
+    private final int size;
+    private final long[] typeCounts;
+
+    // Call on the thread that owns the store; the type counts are copied
+    // here so other threads can read them without touching the store
+    public EnemyList(EnemyStore store, int size) {
+        this.store = store;
+        this.size = size;
+        this.typeCounts = store.countTypes();
+    }
+
+    @Override
+    public Enemy get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new Enemy(store, index);
+    }
+
+    // Enemies of each EnemyType when this view was published
+    public long[] countTypes() {
+        return typeCounts.clone();
+    }
+
+    public long getBytesPerEnemy() {
+        return store.getBytesPerEnemy();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,272 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Advances every enemy by one tick. Enemies are split into fixed-size chunks
+// that can run on a ForkJoinPool; movement only reads the tile map, which
+// changes only in ChunkedWorldMap.stream(), run at the start of step()
+// before any pass, and each chunk writes only its own slots of the
+// EnemyStore.
+//
+// Random decisions come from the world's GameRandom streams rather than the
+// shared Math.random(), and spatial grid updates are applied afterwards in
+// chunk order, so a given seed gives the same run whatever the thread
+// count, including the single-threaded path.
+//
+// With collisions on, a tick runs in three passes over the chunks: plan
+// every move, check the planned moves against each other (EnemyCollisions),
+// then commit the ones that passed. Each pass is parallel on its own.
+//
+// In chase mode enemies near the player follow a FlowField towards it,
+// updated once at the start of each tick and only read by the chunks.
+public class EnemySimulation {
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final GameWorld world;
+    private final int chunkSize;
+    private final GameRandom random;
+    private final ForkJoinPool pool;
+    private final EnemyCollisions collisions;
+    private final FlowField flowField;
+    private volatile boolean chasing;
+    private FlowField activeField; // flowField while chasing, else null
+    private boolean flowFieldUpdated;
+    private long tick = 0;
+
+    // Chunk passes, see step()
+    private static final int MOVE = 0;
+    private static final int PLAN = 1;
+    private static final int RESOLVE = 2;
+    private static final int COMMIT = 3;
+
+    // Per enemy move plans (Enemy.plan) when collisions are on
+    private byte[] plans = new byte[0];
+    private int[] blockedCount = new int[0];
+    private int blockedMoves;
+    private int playerContacts;
+    private int playerX, playerY;
+
+    // Enemies that crossed a tile this tick; chunk c writes from c * chunkSize
+    private int[] crossed = new int[0];
+    private int[] crossedCount = new int[0];
+
+    // collisions = false lets enemies walk through each other and the
+    // player, in a single pass
+    public EnemySimulation(GameWorld world, int threads, int chunkSize, boolean collisions) {
+        this.world = world;
+        this.chunkSize = chunkSize;
+        this.random = world.getRandom();
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.collisions = collisions ? new EnemyCollisions(world.getEnemies(), world.getSpatialGrid()) : null;
+        this.flowField = new FlowField(world.getMap(), FlowField.DEFAULT_RADIUS);
+    }
+
+    // Switches between random walking and chasing the player; safe to call
+    // from any thread, takes effect from the next tick
+    public void setChasing(boolean chasing) {
+        this.chasing = chasing;
+    }
+
+    public boolean isChasing() {
+        return chasing;
+    }
+
+    public FlowField getFlowField() {
+        return flowField;
+    }
+
+    public void step() {
+        GameEvents.Tick event = new GameEvents.Tick();
+        event.begin();
+
+        // Load map around the player, then pick up enemies spawned from
+        // other threads since the last tick
+        world.streamMap();
+        int before = world.getEnemies().size();
+        world.applyPendingSpawns();
+
+        Player player = world.getPlayer();
+        playerX = player.getX();
+        playerY = player.getY();
+        activeField = chasing ? flowField : null;
+        flowFieldUpdated = activeField != null && activeField.update(playerX, playerY);
+
+        int count = world.getEnemies().size();
+        int chunks = (count + chunkSize - 1) / chunkSize;
+        if (crossed.length < count) {
+            crossed = new int[count];
+        }
+        if (crossedCount.length < chunks) {
+            crossedCount = new int[chunks];
+            blockedCount = new int[chunks];
+        }
+
+        if (collisions == null) {
+            runPass(MOVE, chunks, count);
+        } else {
+            if (plans.length < count) {
+                plans = new byte[crossed.length];
+            }
+            runPass(PLAN, chunks, count);
+            runPass(RESOLVE, chunks, count);
+            runPass(COMMIT, chunks, count);
+            blockedMoves = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                blockedMoves += blockedCount[chunk];
+            }
+        }
+
+        // The grid is not thread-safe, so re-bucket here in a fixed order
+        SpatialGrid grid = world.getSpatialGrid();
+        EnemyStore enemies = world.getEnemies();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int start = chunk * chunkSize;
+            for (int k = 0; k < crossedCount[chunk]; k++) {
+                int index = crossed[start + k];
+                grid.move(index, enemies.getX(index), enemies.getY(index));
+            }
+        }
+        if (collisions != null) {
+            countPlayerContacts();
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = tick;
+            event.enemies = count;
+            event.spawned = count - before;
+            event.blockedMoves = blockedMoves;
+            event.playerContacts = playerContacts;
+            event.flowFieldUpdated = flowFieldUpdated;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                event.crossings += crossedCount[chunk];
+            }
+            event.commit();
+        }
+        tick++;
+    }
+
+    private void runPass(int pass, int chunks, int count) {
+        if (pool == null || chunks < 2) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                runChunk(pass, chunk, count);
+            }
+        } else {
+            pool.invoke(new ChunkTask(pass, 0, chunks, count));
+        }
+    }
+
+    private void runChunk(int pass, int chunk, int count) {
+        int start = chunk * chunkSize;
+        int end = Math.min(start + chunkSize, count);
+        switch (pass) {
+            case MOVE: moveChunk(chunk, start, end); break;
+            case PLAN: planChunk(chunk, start, end); break;
+            case RESOLVE: blockedCount[chunk] = collisions.resolve(plans, start, end, playerX, playerY); break;
+            case COMMIT: commitChunk(chunk, start, end); break;
+        }
+    }
+
+    private void moveChunk(int chunk, int start, int end) {
+        EnemyStore enemies = world.getEnemies();
+        RandomStream stream = random.chunkStream(tick, chunk);
+        int crossings = 0;
+        for (int i = start; i < end; i++) {
+            // Enemies on parts of the map that are not loaded stay frozen
+            if (!world.isActive(enemies.getX(i), enemies.getY(i))) {
+                continue;
+            }
+            random.beginEntity(stream, tick, i);
+            if (Enemy.move(enemies, i, world, activeField, stream)) {
+                crossed[start + crossings++] = i;
+            }
+        }
+        crossedCount[chunk] = crossings;
+    }
+
+    private void planChunk(int chunk, int start, int end) {
+        EnemyStore enemies = world.getEnemies();
+        RandomStream stream = random.chunkStream(tick, chunk);
+        for (int i = start; i < end; i++) {
+            if (!world.isActive(enemies.getX(i), enemies.getY(i))) {
+                plans[i] = 0;
+                continue;
+            }
+            random.beginEntity(stream, tick, i);
+            plans[i] = (byte) Enemy.plan(enemies, i, world, activeField, stream, true);
+        }
+    }
+
+    private void commitChunk(int chunk, int start, int end) {
+        EnemyStore enemies = world.getEnemies();
+        int crossings = 0;
+        for (int i = start; i < end; i++) {
+            if (Enemy.commit(enemies, i, plans[i])) {
+                crossed[start + crossings++] = i;
+            }
+        }
+        crossedCount[chunk] = crossings;
+    }
+
+    private void countPlayerContacts() {
+        playerContacts = 0;
+        EnemyStore enemies = world.getEnemies();
+        world.getSpatialGrid().forEachInRect(playerX, playerY, playerX + Player.SIZE - 1, playerY + Player.SIZE - 1,
+                index -> {
+                    // The grid assumes the largest box, so check the real one
+                    int size = EnemyType.byId(enemies.getTypeId(index)).getSize();
+                    if (EnemyCollisions.overlaps(enemies.getX(index), enemies.getY(index), size,
+                            playerX, playerY, Player.SIZE)) {
+                        playerContacts++;
+                    }
+                });
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    // Continues the random streams from a saved tick, see WorldSnapshot
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    // Moves blocked by collisions in the last tick
+    public int getBlockedMoves() {
+        return blockedMoves;
+    }
+
+    // Enemies touching the player after the last tick
+    public int getPlayerContacts() {
+        return playerContacts;
+    }
+
+    public int getThreads() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int pass;
+        private final int fromChunk;
+        private final int toChunk;
+        private final int count;
+
+        ChunkTask(int pass, int fromChunk, int toChunk, int count) {
+            this.pass = pass;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                runChunk(pass, fromChunk, count);
+                return;
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new ChunkTask(pass, fromChunk, middle, count), new ChunkTask(pass, middle, toChunk, count));
+        }
+    }
+}
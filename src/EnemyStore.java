@@ -0,0 +1,50 @@
+import java.nio.ByteBuffer;
+
+// Holds the state of every enemy, addressed by a dense index.
+// Enemy is only a view over one slot, so the layout behind this interface
+// can change without touching the movement or drawing code.
+public interface EnemyStore {
+    int size();
+
+    // Appends a new enemy and returns its index. phase (0 to 255) offsets
+    // its walk cycle from the others', see Animation.
+    int add(int x, int y, int direction, int typeId, int phase);
+
+    // Pre-sizes the storage so the next adds do not have to grow it
+    void ensureCapacity(int capacity);
+
+    int getX(int index);
+
+    int getY(int index);
+
+    void setPosition(int index, int x, int y);
+
+    int getDirection(int index);
+
+    void setDirection(int index, int direction);
+
+    int getCooldown(int index);
+
+    void setCooldown(int index, int cooldown);
+
+    // EnemyType id, 0 to 255
+    int getTypeId(int index);
+
+    Sprite getSprite(int index);
+
+    int getPhase(int index);
+
+    // Enemies of each EnemyType, indexed by id. A copy, kept up to date by
+    // add and readColumns so counting costs nothing per enemy.
+    long[] countTypes();
+
+    // Bulk copies for WorldSnapshot. Columns come one after another: x and y
+    // as ints, cooldown as shorts, then direction, typeId and phase as bytes.
+    void writeColumns(ByteBuffer buffer);
+
+    // Appends count enemies laid out as by writeColumns
+    void readColumns(ByteBuffer buffer, int count);
+
+    // Heap bytes each enemy costs in this layout, excluding the shared sprites
+    long getBytesPerEnemy();
+}
@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Intrinsic state shared by every enemy of one kind, walk cycle included;
+// the enemy counterpart of TileType. An enemy stores only the one-byte id,
+// which indexes the registry below, so adding types or fields here costs
+// nothing per enemy.
+//
+// The registry is read once from src/enemies.txt, one type per line, in the
+// column order documented at the top of that file.
+public final class EnemyType {
+    // Largest box the walkability checks and the spatial grid allow for
+    public static final int MAX_SIZE = 16;
+    private static final int MAX_SPEED = 8;
+    private static final int MAX_TYPES = 256; // one unsigned byte per enemy
+    private static final Path FILE = Paths.get("src/enemies.txt");
+
+    private static final EnemyType[] REGISTRY = load(FILE);
+    private static final int FASTEST = fastest(REGISTRY);
+
+    private final byte id;
+    private final String name;
+    private final int speed;
+    private final int size;
+    private final double turnChance;
+    private final int wallCooldown;
+    private final int turnCooldown;
+    private final Animation animation;
+
+    private EnemyType(int id, String name, int speed, int size, double turnChance, int wallCooldown,
+                      int turnCooldown, String spritePath, int frames, int facings, int frameTicks) {
+        this.id = (byte) id;
+        this.name = name;
+        this.speed = speed;
+        this.size = size;
+        this.turnChance = turnChance;
+        this.wallCooldown = wallCooldown;
+        this.turnCooldown = turnCooldown;
+        this.animation = SpriteFactory.getAnimation(spritePath, name, frames, facings, frameTicks);
+    }
+
+    private static EnemyType[] load(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read enemy types from " + file, e);
+        }
+
+        List<EnemyType> types = new ArrayList<>();
+        for (int number = 1; number <= lines.size(); number++) {
+            String line = lines.get(number - 1).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                types.add(parse(types.size(), line.split("\\s+")));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException(file + " line " + number + ": " + e.getMessage(), e);
+            }
+        }
+        if (types.isEmpty() || types.size() > MAX_TYPES) {
+            throw new IllegalStateException(file + " must list between 1 and " + MAX_TYPES + " enemy types");
+        }
+        return types.toArray(new EnemyType[0]);
+    }
+
+    private static EnemyType parse(int id, String[] columns) {
+        if (columns.length != 10) {
+            throw new IllegalArgumentException("expected 10 columns, found " + columns.length);
+        }
+        int speed = Integer.parseInt(columns[1]);
+        int size = Integer.parseInt(columns[2]);
+        double turnChance = Double.parseDouble(columns[3]);
+        int wallCooldown = Integer.parseInt(columns[4]);
+        int turnCooldown = Integer.parseInt(columns[5]);
+        int frames = Integer.parseInt(columns[7]);
+        int facings = Integer.parseInt(columns[8]);
+        int frameTicks = Integer.parseInt(columns[9]);
+
+        // Steps that divide 16 keep enemies spawned on tile corners able to
+        // line up with tiles exactly, which FlowField relies on
+        if (speed < 1 || speed > MAX_SPEED || Integer.bitCount(speed) != 1) {
+            throw new IllegalArgumentException("speed must be 1, 2, 4 or 8, not " + speed);
+        }
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be 1 to " + MAX_SIZE + ", not " + size);
+        }
+        if (!(turnChance >= 0 && turnChance <= 1)) {
+            throw new IllegalArgumentException("turn must be between 0 and 1, not " + turnChance);
+        }
+        // Cooldowns are stored as shorts
+        if (wallCooldown < 0 || wallCooldown > Short.MAX_VALUE || turnCooldown < 0 || turnCooldown > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("wait times must be 0 to " + Short.MAX_VALUE);
+        }
+        if (frames < 1 || frameTicks < 1) {
+            throw new IllegalArgumentException("frames and frame_ticks must be at least 1");
+        }
+        if (facings != 1 && facings != 4) {
+            throw new IllegalArgumentException("facings must be 1 or 4, not " + facings);
+        }
+        return new EnemyType(id, columns[0], speed, size, turnChance, wallCooldown, turnCooldown,
+                columns[6], frames, facings, frameTicks);
+    }
+
+    private static int fastest(EnemyType[] types) {
+        int fastest = 0;
+        for (EnemyType type : types) {
+            fastest = Math.max(fastest, type.speed);
+        }
+        return fastest;
+    }
+
+    public static EnemyType byId(int id) {
+        return REGISTRY[id];
+    }
+
+    public static int count() {
+        return REGISTRY.length;
+    }
+
+    // Highest speed of any type, for checks that must cover any enemy's step
+    public static int maxSpeed() {
+        return FASTEST;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getTurnChance() {
+        return turnChance;
+    }
+
+    public int getWallCooldown() {
+        return wallCooldown;
+    }
+
+    public int getTurnCooldown() {
+        return turnCooldown;
+    }
+
+    // Still image, for drawing without a tick
+    public Sprite getSprite() {
+        return animation.getSprite();
+    }
+
+    public Animation getAnimation() {
+        return animation;
+    }
+}
@@ -0,0 +1,176 @@
+// Which way to step towards the player, for every tile within radius tiles
+// of the player's tile. One breadth-first search over walkable tiles from
+// the player outwards fills the field, and every enemy then finds its next
+// step with a single array read, however many there are. Like the sprites,
+// the path is shared state rather than something each enemy works out.
+//
+// The field only changes when the player moves onto another tile, so
+// update() redoes the search then and is a no-op otherwise. The search
+// covers at most (2 * radius + 1)^2 tiles, whatever the size of the map;
+// enemies further away, or cut off from the player, have no direction here.
+public class FlowField {
+    public static final int DEFAULT_RADIUS = 64;
+
+    // steer() results besides the four directions
+    public static final int NONE = -1; // not covered by the field
+    public static final int HOLD = 4; // already at the player
+
+    // Cell values besides the direction leading to the neighbour one step
+    // closer to the player
+    private static final byte UNREACHED = -1;
+    private static final byte GOAL = 4;
+    private static final byte WALL = 5;
+
+    private final WorldMap map;
+    private final int radius;
+    private final int size;
+    private final byte[] directions;
+    private final int[] queue;
+    private int originX, originY; // tile at directions[0]
+    private int goalTileX = Integer.MIN_VALUE, goalTileY;
+    private int playerX, playerY;
+    private int reachable;
+    private long updates;
+
+    public FlowField(WorldMap map, int radius) {
+        this.map = map;
+        this.radius = radius;
+        this.size = 2 * radius + 1;
+        this.directions = new byte[size * size];
+        this.queue = new int[size * size];
+    }
+
+    // Follows the player at pixel (x, y); simulation thread, between ticks.
+    // Returns true when the field was recomputed.
+    public boolean update(int x, int y) {
+        playerX = x;
+        playerY = y;
+        // Tile under the center of the player's 16px box
+        int tileX = (x + 8) >> 4;
+        int tileY = (y + 8) >> 4;
+        if (tileX == goalTileX && tileY == goalTileY) {
+            return false;
+        }
+        goalTileX = tileX;
+        goalTileY = tileY;
+        originX = tileX - radius;
+        originY = tileY - radius;
+        search();
+        updates++;
+        return true;
+    }
+
+    // Breadth-first from the goal; each tile reached gets the direction
+    // back to the tile it was reached from, which is one step closer.
+    // Walkability is read once per tile, row by row, up front: on a chunked
+    // map every read is a chunk lookup, and the search would otherwise do
+    // four per tile.
+    private void search() {
+        for (int cellY = 0; cellY < size; cellY++) {
+            int y = (originY + cellY) * 16;
+            for (int cellX = 0; cellX < size; cellX++) {
+                directions[cellY * size + cellX] = map.isWalkable((originX + cellX) * 16, y) ? UNREACHED : WALL;
+            }
+        }
+        int center = radius * size + radius;
+        directions[center] = GOAL;
+        queue[0] = center;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int cell = queue[head++];
+            int cellX = cell % size;
+            // Each neighbour steps back the opposite way; 0 is up, then clockwise
+            if (cell >= size) {
+                tail = visit(cell - size, 2, tail);
+            }
+            if (cellX < size - 1) {
+                tail = visit(cell + 1, 3, tail);
+            }
+            if (cell < directions.length - size) {
+                tail = visit(cell + size, 0, tail);
+            }
+            if (cellX > 0) {
+                tail = visit(cell - 1, 1, tail);
+            }
+        }
+        reachable = tail;
+    }
+
+    private int visit(int cell, int direction, int tail) {
+        if (directions[cell] != UNREACHED) {
+            return tail;
+        }
+        directions[cell] = (byte) direction;
+        queue[tail] = cell;
+        return tail + 1;
+    }
+
+    // Direction for an enemy of the given type at pixel (x, y) to step
+    // next, HOLD if it is on the player, or NONE outside the field. Reads
+    // only, so any number of threads may steer at once.
+    //
+    // The field is per tile but enemies sit between tiles, so before
+    // stepping towards the next tile an enemy first lines up with its own
+    // tile across the direction of travel. Its box then only ever covers
+    // its own tile, tiles it already covers, and the walkable tile it is
+    // heading for, so the step never clips a wall corner. Enemies start on
+    // tile corners and EnemyType speeds divide 16, so lining up is exact.
+    public int steer(int x, int y, EnemyType type) {
+        int half = type.getSize() / 2;
+        int tileX = (x + half) >> 4;
+        int tileY = (y + half) >> 4;
+        int cellX = tileX - originX;
+        int cellY = tileY - originY;
+        if (Integer.compareUnsigned(cellX, size) >= 0 || Integer.compareUnsigned(cellY, size) >= 0) {
+            return NONE;
+        }
+        int direction = directions[cellY * size + cellX];
+        return direction == UNREACHED || direction == WALL ? NONE : step(x, y, tileX, tileY, direction, type.getSpeed());
+    }
+
+    // Kept apart from steer() so the check most enemies stop at stays small
+    // enough to inline into the move loop
+    private int step(int x, int y, int tileX, int tileY, int direction, int speed) {
+        if (direction == GOAL) {
+            return approach(playerX - x, playerY - y, speed);
+        }
+        if (direction == 0 || direction == 2) {
+            int offset = x - tileX * 16;
+            if (offset != 0) {
+                return offset > 0 ? 3 : 1;
+            }
+        } else {
+            int offset = y - tileY * 16;
+            if (offset != 0) {
+                return offset > 0 ? 0 : 2;
+            }
+        }
+        return direction;
+    }
+
+    // On the player's tile: close the larger gap first
+    private static int approach(int dx, int dy, int speed) {
+        if (Math.abs(dx) < speed && Math.abs(dy) < speed) {
+            return HOLD;
+        }
+        if (Math.abs(dx) >= Math.abs(dy)) {
+            return dx > 0 ? 1 : 3;
+        }
+        return dy > 0 ? 2 : 0;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    // Tiles with a path to the player in the current field
+    public int getReachableTiles() {
+        return reachable;
+    }
+
+    // Times the field was recomputed
+    public long getUpdates() {
+        return updates;
+    }
+}
@@ -0,0 +1,214 @@
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Headless benchmarks comparing the flyweight game (default package) with
+// the noflyweight package. Run from the project root so sprites resolve:
+//
+//   java -Djava.awt.headless=true -cp out FlyweightBenchmark
+//
+// Each benchmark prints mean and best ns/op plus bytes allocated per op on
+// the benchmark thread. noflyweight prints a line for every sprite it
+// creates, one per enemy; System.out is pointed at a null stream for the
+// whole run so those rows time the work rather than the console.
+// Tunables (system properties):
+//   bench.sizes             enemy counts for spawn/update/render (1000,10000,100000,1000000)
+//   bench.noflyweightMax    largest count run against noflyweight, which
+//                           loads one image per enemy (100000)
+//   bench.warmup            least warmup iterations (5)
+//   bench.warmupMillis      least warmup time per benchmark, so the JIT has
+//                           finished compiling before timing starts (1000)
+//   bench.iterations        measured iterations (10)
+public class FlyweightBenchmark {
+    private static final int WORLD_WIDTH = 600 / 16;
+    private static final int WORLD_HEIGHT = 400 / 16;
+    private static final long SEED = 42;
+    // getEntities() calls per timed run, so the timer's own cost is noise
+    private static final int GET_ENTITIES_OPS = 100_000;
+
+    private static final int WARMUP = Integer.getInteger("bench.warmup", 5);
+    private static final long WARMUP_NANOS = Long.getLong("bench.warmupMillis", 1000) * 1_000_000L;
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 10);
+    private static final int NOFLYWEIGHT_MAX = Integer.getInteger("bench.noflyweightMax", 100_000);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Keeps results reachable so the JIT cannot drop the measured work
+    private static Object sink;
+    // The real standard output, for results
+    private static final PrintStream RESULTS = System.out;
+
+    public static void main(String[] args) {
+        int[] sizes = parseSizes(System.getProperty("bench.sizes", "1000,10000,100000,1000000"));
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        RESULTS.printf("%-40s %14s %14s %14s%n", "benchmark", "mean ns/op", "best ns/op", "bytes/op");
+
+        measure("flyweight   new GameWorld", 1, () -> () -> sink = newWorld());
+        measure("noflyweight new GameWorld", 1, () -> () -> sink = new noflyweight.GameWorld(WORLD_WIDTH, WORLD_HEIGHT));
+
+        for (int size : sizes) {
+            measure("flyweight   spawn " + size, size, () -> {
+                GameWorld world = newWorld();
+                return () -> {
+                    world.spawnEnemies(size);
+                    world.applyPendingSpawns();
+                };
+            });
+            if (size <= NOFLYWEIGHT_MAX) {
+                measure("noflyweight spawn " + size, size, () -> {
+                    noflyweight.GameWorld world = new noflyweight.GameWorld(WORLD_WIDTH, WORLD_HEIGHT);
+                    return () -> {
+                        for (int i = 0; i < size; i++) {
+                            world.spawnEnemy();
+                        }
+                    };
+                });
+            }
+        }
+
+        for (int size : sizes) {
+            GameWorld world = populatedWorld(size);
+            // Without collisions, so the row compares with noflyweight's
+            // random walk; the cost of collisions gets a row of its own
+            EnemySimulation simulation = new EnemySimulation(world, 1, EnemySimulation.DEFAULT_CHUNK_SIZE, false);
+            measure("flyweight   update " + size, 1, () -> simulation::step);
+            EnemySimulation colliding = new EnemySimulation(populatedWorld(size), 1, EnemySimulation.DEFAULT_CHUNK_SIZE, true);
+            measure("flyweight   update+collisions " + size, 1, () -> colliding::step);
+
+            // Publishing the snapshot is timed on its own; the render row
+            // is only the drawing, like noflyweight's
+            SnapshotPublisher publisher = new SnapshotPublisher(world, 600, 400);
+            long[] tick = {0};
+            measure("flyweight   publish " + size, 1, () -> () -> publisher.publish(tick[0]++));
+            WorldRenderer renderer = new WorldRenderer(world, 600, 400);
+            BufferedImage target = new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB);
+            measure("flyweight   render " + size, 1, () -> {
+                publisher.publish(tick[0]++);
+                return () -> {
+                    Graphics g = target.getGraphics();
+                    renderer.render(g, publisher.getLatest(), 1);
+                    g.dispose();
+                };
+            });
+
+            measure("flyweight   getEntities " + size, GET_ENTITIES_OPS, () -> () -> {
+                for (int i = 0; i < GET_ENTITIES_OPS; i++) {
+                    sink = world.getEntities();
+                }
+            });
+
+            if (size <= NOFLYWEIGHT_MAX) {
+                noflyweight.GameWorld other = populatedNoFlyweightWorld(size);
+                measure("noflyweight update " + size, 1, () -> () -> {
+                    // Same loop as noflyweight.Game.update()
+                    for (noflyweight.GameObject entity : other.getEntities()) {
+                        if (entity instanceof noflyweight.Enemy) {
+                            ((noflyweight.Enemy) entity).move(other);
+                        }
+                    }
+                });
+                measure("noflyweight render " + size, 1, () -> () -> {
+                    Graphics g = target.getGraphics();
+                    renderNoFlyweight(other, g);
+                    g.dispose();
+                });
+                // Each call copies the list, so fewer calls as it grows
+                int copies = Math.max(1, GET_ENTITIES_OPS / size);
+                measure("noflyweight getEntities " + size, copies, () -> () -> {
+                    for (int i = 0; i < copies; i++) {
+                        sink = other.getEntities();
+                    }
+                });
+            }
+            sink = null;
+        }
+    }
+
+    // Runs setup (untimed) then the returned operation, which performs
+    // opsPerCall operations: at least WARMUP times and for WARMUP_NANOS as
+    // warmup, then ITERATIONS times measured
+    private static void measure(String name, int opsPerCall, Supplier<Runnable> setup) {
+        long totalNanos = 0;
+        long bestNanos = Long.MAX_VALUE;
+        long totalBytes = 0;
+        long threadId = Thread.currentThread().getId();
+
+        int warmups = 0;
+        long warmupStart = System.nanoTime();
+        int measured = 0;
+        while (measured < ITERATIONS) {
+            Runnable operation = setup.get();
+            long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            operation.run();
+            long elapsed = System.nanoTime() - start;
+            long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            if (warmups < WARMUP || start - warmupStart < WARMUP_NANOS) {
+                warmups++;
+            } else {
+                measured++;
+                totalNanos += elapsed;
+                totalBytes += bytes;
+                bestNanos = Math.min(bestNanos, elapsed);
+            }
+        }
+
+        long ops = (long) ITERATIONS * opsPerCall;
+        RESULTS.printf("%-40s %14.1f %14.1f %14.1f%n", name,
+                (double) totalNanos / ops, (double) bestNanos / opsPerCall, (double) totalBytes / ops);
+    }
+
+    private static GameWorld newWorld() {
+        return new GameWorld(WORLD_WIDTH, WORLD_HEIGHT, true, new GameRandom(SEED));
+    }
+
+    private static GameWorld populatedWorld(int size) {
+        GameWorld world = newWorld();
+        world.spawnEnemies(size);
+        world.applyPendingSpawns();
+        return world;
+    }
+
+    private static noflyweight.GameWorld populatedNoFlyweightWorld(int size) {
+        noflyweight.GameWorld world = new noflyweight.GameWorld(WORLD_WIDTH, WORLD_HEIGHT);
+        for (int i = 0; i < size; i++) {
+            world.spawnEnemy();
+        }
+        return world;
+    }
+
+    // Same drawing as noflyweight.Game.render(), minus the BufferStrategy
+    private static void renderNoFlyweight(noflyweight.GameWorld world, Graphics g) {
+        g.setColor(java.awt.Color.BLACK);
+        g.fillRect(0, 0, 600, 400);
+
+        noflyweight.Tile[][] map = world.getMap();
+        for (int y = 0; y < world.getHeight(); y++) {
+            for (int x = 0; x < world.getWidth(); x++) {
+                map[y][x].draw(g);
+            }
+        }
+
+        List<noflyweight.GameObject> entities = world.getEntities();
+        for (noflyweight.GameObject entity : entities) {
+            entity.draw(g);
+        }
+        world.getPlayer().draw(g);
+    }
+
+    private static int[] parseSizes(String value) {
+        String[] parts = value.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim().replace("_", ""));
+        }
+        return sizes;
+    }
+}
@@ -1,22 +1,75 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferStrategy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Game extends JFrame implements Runnable {
     // Adjusted window dimensions
     private static final int WIDTH = 600;
     private static final int HEIGHT = 400;
     private static final int TILE_SIZE = 16;
+    // -Dgame.objectLayout=true keeps one object per enemy instead of parallel arrays
+    private static final boolean STRUCTURE_OF_ARRAYS = !Boolean.getBoolean("game.objectLayout");
+    // Enemy update workers (1 = update on the game thread), chunk size and seed
+    private static final int THREADS = Integer.getInteger("game.threads", Runtime.getRuntime().availableProcessors());
+    private static final int CHUNK_SIZE = Integer.getInteger("game.chunkSize", EnemySimulation.DEFAULT_CHUNK_SIZE);
+    private static final long SEED = Long.getLong("game.seed", System.nanoTime());
+    // per_entity (independent of chunk size) or per_chunk random streams
+    private static final GameRandom.Mode RANDOM_MODE =
+            GameRandom.Mode.valueOf(System.getProperty("game.randomMode", "per_entity").toUpperCase());
+    // -Dgame.chunked=true plays on a streamed map of game.worldWidth x
+    // game.worldHeight tiles instead of one that fits the window
+    private static final boolean CHUNKED = Boolean.getBoolean("game.chunked");
+    private static final int WORLD_WIDTH = Integer.getInteger("game.worldWidth", 4096);
+    private static final int WORLD_HEIGHT = Integer.getInteger("game.worldHeight", 4096);
+    private static final int CHUNK_RADIUS = Integer.getInteger("game.chunkRadius", 2);
+    private static final long CHUNK_BUDGET = Long.getLong("game.chunkBudgetMb", 16) * 1024 * 1024;
+    // -Dgame.snapshot=FILE starts from a WorldSnapshot (see HeadlessGame --save)
+    private static final String SNAPSHOT = System.getProperty("game.snapshot");
+    // -Dgame.statsCsv=FILE appends the per-second loop timings to FILE
+    private static final String STATS_CSV = System.getProperty("game.statsCsv");
+    // -Dgame.interpolate=false draws each tick as it is instead of blending
+    // the last two, and only redraws when a new tick arrives
+    private static final boolean INTERPOLATE = Boolean.parseBoolean(System.getProperty("game.interpolate", "true"));
+    private static final double TICKS_PER_SECOND = 60.0;
+    // Most ticks run back to back to catch up before the loop checks the
+    // clock and the stats again; the rest are dropped
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    // -Dgame.collisions=false lets enemies walk through each other and the player
+    private static final boolean COLLISIONS = Boolean.parseBoolean(System.getProperty("game.collisions", "true"));
+    // -Dgame.chase=true starts with enemies chasing the player
+    private static final boolean CHASE = Boolean.getBoolean("game.chase");
 
     private final GameWorld world;
     private final Canvas gameCanvas;
     private final MemoryUsageView memoryView;
+    private final WorldRenderer renderer;
+    private final EnemySimulation simulation;
+    private final PerformanceStats stats;
+    private final SnapshotPublisher publisher;
+    private final AtomicInteger renderedFrames = new AtomicInteger();
+    private final InputState input = new InputState();
     private Timer updateTimer;
-
-    private boolean running = false;
+    private final ExecutorService spawner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "spawner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running = false;
+    // Ticks the simulation and publishes render snapshots
     private Thread gameThread;
+    // Draws the latest snapshot, never touching the live world state
+    private Thread renderThread;
 
     public Game() {
         setTitle("Zelda-like Game with Flyweight Pattern");
@@ -52,6 +105,10 @@ public class Game extends JFrame implements Runnable {
         spawn100000Button.addActionListener(e -> spawnEnemies(100_000));
         buttonPanel.add(spawn100000Button);
         
+        JButton chaseButton = createZeldaButton(CHASE ? "Wander" : "Chase", "Switch enemies between chasing you and wandering");
+        chaseButton.addActionListener(e -> toggleChase(chaseButton));
+        buttonPanel.add(chaseButton);
+
         add(buttonPanel, BorderLayout.NORTH);
 
         gameCanvas = new Canvas();
@@ -60,39 +117,59 @@ public class Game extends JFrame implements Runnable {
         add(gameCanvas, BorderLayout.CENTER);
 
         // Initialize game world with new dimensions
-        world = new GameWorld(WIDTH/TILE_SIZE, HEIGHT/TILE_SIZE);
+        GameRandom random = new GameRandom(SEED, RANDOM_MODE);
+        long startTick = 0;
+        if (SNAPSHOT != null) {
+            WorldSnapshot snapshot;
+            try {
+                snapshot = WorldSnapshot.load(Paths.get(SNAPSHOT), STRUCTURE_OF_ARRAYS);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load snapshot " + SNAPSHOT, e);
+            }
+            world = snapshot.getWorld();
+            startTick = snapshot.getTick();
+        } else if (CHUNKED) {
+            world = new GameWorld(new ChunkedWorldMap(WORLD_WIDTH, WORLD_HEIGHT, SEED, CHUNK_RADIUS, CHUNK_BUDGET),
+                    STRUCTURE_OF_ARRAYS, random);
+        } else {
+            world = new GameWorld(WIDTH/TILE_SIZE, HEIGHT/TILE_SIZE, STRUCTURE_OF_ARRAYS, random);
+        }
+
+        renderer = new WorldRenderer(world, WIDTH, HEIGHT);
+        simulation = new EnemySimulation(world, THREADS, CHUNK_SIZE, COLLISIONS);
+        simulation.setTick(startTick);
+        simulation.setChasing(CHASE);
+        publisher = new SnapshotPublisher(world, WIDTH, HEIGHT);
 
-        memoryView = new MemoryUsageView(world);
+        try {
+            stats = new PerformanceStats(STATS_CSV);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open " + STATS_CSV, e);
+        }
+        memoryView = new MemoryUsageView(world, stats);
         add(memoryView, BorderLayout.SOUTH);
 
         pack();
         setLocationRelativeTo(null);
 
-        // Add keyboard input for player movement
+        // Keyboard input only records key state; the simulation thread
+        // moves the player once per tick
         gameCanvas.addKeyListener(new KeyAdapter() {
-            // In the KeyAdapter:
             @Override
             public void keyPressed(KeyEvent e) {
-                Player player = world.getPlayer();
-                int speed = 5;
-
-                switch(e.getKeyCode()) {
-                    case KeyEvent.VK_UP:
-                        player.move(0, -speed, world);
-                        break;
-                    case KeyEvent.VK_DOWN:
-                        player.move(0, speed, world);
-                        break;
-                    case KeyEvent.VK_LEFT:
-                        player.move(-speed, 0, world);
-                        break;
-                    case KeyEvent.VK_RIGHT:
-                        player.move(speed, 0, world);
-                        break;
-                }
+                input.keyPressed(e.getKeyCode());
             }
 
-
+            @Override
+            public void keyReleased(KeyEvent e) {
+                input.keyReleased(e.getKeyCode());
+            }
+        });
+        gameCanvas.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                input.releaseAll();
+            }
         });
 
         gameCanvas.createBufferStrategy(2);
@@ -104,12 +181,23 @@ public class Game extends JFrame implements Runnable {
     }
 
     // Add method to spawn enemies
+    // Builds the batch on the spawner thread so big spawns do not freeze
+    // the window; one thread keeps batches in the order they were asked for
     private void spawnEnemies(int count) {
-        for (int i = 0; i < count; i++) {
-            world.spawnEnemy();
-        }
-        System.out.println("Spawned " + count + " enemies. Total: " + world.getEntities().size());
-        memoryView.repaint();
+        spawner.execute(() -> {
+            world.spawnEnemies(count);
+            System.out.println("Spawning " + count + " enemies. Total: "
+                    + (world.getEntities().size() + world.getPendingSpawnCount()));
+            SwingUtilities.invokeLater(memoryView::repaint);
+        });
+    }
+
+    private void toggleChase(JButton button) {
+        boolean chasing = !simulation.isChasing();
+        simulation.setChasing(chasing);
+        button.setText(chasing ? "Wander" : "Chase");
+        // Keep the arrow keys going to the game
+        gameCanvas.requestFocusInWindow();
     }
 
     // Helper method to create Zelda-themed buttons
@@ -178,62 +266,108 @@ public class Game extends JFrame implements Runnable {
 
     public synchronized void start() {
         running = true;
-        gameThread = new Thread(this);
+        gameThread = new Thread(this, "simulation");
+        renderThread = new Thread(this::renderLoop, "render");
         gameThread.start();
+        renderThread.start();
     }
 
     public synchronized void stop() {
         running = false;
         try {
             gameThread.join();
+            renderThread.join();
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
     }
 
+    // Simulation thread: fixed-timestep ticks, each followed by a snapshot
+    // for the render thread. A slow frame no longer delays ticks.
     @Override
     public void run() {
-        // Game loop
         long lastTime = System.nanoTime();
-        double amountOfTicks = 60.0;
-        double ns = 1000000000 / amountOfTicks;
+        double ns = 1000000000 / TICKS_PER_SECOND;
         double delta = 0;
         long timer = System.currentTimeMillis();
-        int frames = 0;
 
         while(running) {
             long now = System.nanoTime();
             delta += (now - lastTime) / ns;
             lastTime = now;
+            stats.recordBacklog(delta);
 
-            while(delta >= 1) {
+            int caughtUp = 0;
+            while(delta >= 1 && caughtUp < MAX_CATCH_UP_TICKS) {
+                stats.beginUpdate();
                 update();
+                stats.endUpdate();
                 delta--;
+                caughtUp++;
+            }
+            // Ticks still owed after a full pass are dropped, so a run of
+            // slow ticks slows the game down instead of making each pass
+            // longer than the last, and the stats below keep closing
+            if (delta >= 1) {
+                stats.recordDroppedTicks((long) delta);
+                delta -= (long) delta;
             }
-
-            render();
-            frames++;
 
             if(System.currentTimeMillis() - timer > 1000) {
                 timer += 1000;
+                int frames = renderedFrames.getAndSet(0);
                 System.out.println("FPS: " + frames);
-                frames = 0;
+                stats.closeInterval(frames);
+            }
+
+            // Nothing to draw on this thread, so sleep until the next tick
+            long sleepNanos = (long) ((1 - delta) * ns);
+            try {
+                Thread.sleep(sleepNanos / 1000000, (int) (sleepNanos % 1000000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
         }
-        stop();
+        stats.close();
     }
 
-    // In the update method:
     private void update() {
-        // Update game logic here
-        for (GameObject entity : world.getEntities()) {
-            if (entity instanceof Enemy) {
-                ((Enemy) entity).move(world);
+        world.getPlayer().update(input.poll(), world);
+        simulation.step();
+        publisher.publish(simulation.getTick());
+    }
+
+    // Render thread: draws the newest snapshot, interpolating towards it
+    // over the tick that follows its publication
+    private void renderLoop() {
+        double tickNanos = 1000000000 / TICKS_PER_SECOND;
+        RenderSnapshot lastDrawn = null;
+
+        while(running) {
+            RenderSnapshot snapshot = publisher.getLatest();
+            if (snapshot == null || (!INTERPOLATE && snapshot == lastDrawn)) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
             }
+
+            double alpha = INTERPOLATE
+                    ? Math.min(1, (System.nanoTime() - snapshot.getPublishedNanos()) / tickNanos)
+                    : 1;
+            long renderStart = System.nanoTime();
+            render(snapshot, alpha);
+            stats.recordRender(System.nanoTime() - renderStart);
+            renderedFrames.incrementAndGet();
+            lastDrawn = snapshot;
         }
     }
 
-    private synchronized void render() {
+    private void render(RenderSnapshot snapshot, double alpha) {
         BufferStrategy bs = gameCanvas.getBufferStrategy();
         if (bs == null) {
             gameCanvas.createBufferStrategy(2);
@@ -242,29 +376,15 @@ public class Game extends JFrame implements Runnable {
 
         Graphics g = bs.getDrawGraphics();
 
-        // Clear screen
-        g.setColor(Color.BLACK);
-        g.fillRect(0, 0, WIDTH, HEIGHT);
-
-        // Draw tiles
-        Tile[][] map = world.getMap();
-        for (int y = 0; y < world.getHeight(); y++) {
-            for (int x = 0; x < world.getWidth(); x++) {
-                map[y][x].draw(g);
-            }
-        }
-
-        // Draw entities and player
-        for (GameObject entity : world.getEntities()) {
-            entity.draw(g);
-        }
-        world.getPlayer().draw(g);
+        renderer.render(g, snapshot, alpha);
 
         g.dispose();
         bs.show();
     }
 
     public static void main(String[] args) {
+        // Decode sprites while Swing starts up; GameWorld waits for them
+        SpriteFactory.preload();
         SwingUtilities.invokeLater(() -> {
             Game game = new Game();
             game.start();
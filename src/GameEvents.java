@@ -0,0 +1,125 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Java Flight Recorder events marking the game's phases, so a recording
+// lines ticks, frames, sprite decodes and loads, and spawns up with the GC
+// and allocation samples around them:
+//
+//   java -XX:StartFlightRecording=filename=game.jfr,settings=profile -cp out Game
+//
+// When no recording is running, begin/end/shouldCommit are no-ops and the
+// event objects do not escape, so the JIT removes them. Tick and frame
+// events below their threshold are dropped too; a .jfc file can lower it,
+// e.g. <setting name="threshold">0 ms</setting> under game.Tick.
+public final class GameEvents {
+    private GameEvents() {
+    }
+
+    @Name("game.Tick")
+    @Label("Game Tick")
+    @Category("Game")
+    @Description("One EnemySimulation.step()")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class Tick extends Event {
+        @Label("Tick")
+        long tick;
+
+        @Label("Enemies")
+        int enemies;
+
+        @Label("Spawned")
+        @Description("Enemies added from pending spawn batches at the start of the tick")
+        int spawned;
+
+        @Label("Tile Crossings")
+        @Description("Enemies moved to another spatial grid cell")
+        int crossings;
+
+        @Label("Blocked Moves")
+        @Description("Moves stopped by enemy or player collisions")
+        int blockedMoves;
+
+        @Label("Player Contacts")
+        @Description("Enemies touching the player after the tick")
+        int playerContacts;
+
+        @Label("Flow Field Updated")
+        @Description("The player changed tile in chase mode, so the flow field was searched again")
+        boolean flowFieldUpdated;
+    }
+
+    @Name("game.Frame")
+    @Label("Frame Drawn")
+    @Category("Game")
+    @Description("One WorldRenderer.render()")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class Frame extends Event {
+        @Label("Drawn Enemies")
+        int drawn;
+
+        @Label("Culled Enemies")
+        @Description("Enemies outside the viewport, never visited")
+        int culled;
+    }
+
+    @Name("game.SpriteLoad")
+    @Label("Sprite Load")
+    @Category("Game")
+    @Description("A SpriteFactory miss: packing a sprite or animation into the atlas, including any wait for its image to decode")
+    public static final class SpriteLoad extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Name")
+        String name;
+
+        @Label("Pixel Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("game.SpriteDecode")
+    @Label("Sprite Decode")
+    @Category("Game")
+    @Description("Reading one sprite image and converting it to the screen's pixel format, on a loader thread when preloaded")
+    @StackTrace(false)
+    public static final class SpriteDecode extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Raster Bytes")
+        @Description("Pixel data of the converted image; 0 if it failed to load")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("game.SpritePreload")
+    @Label("Sprite Preload")
+    @Category("Game")
+    @Description("SpriteFactory.preload(): decoding every sprite image in parallel at startup")
+    @StackTrace(false)
+    public static final class SpritePreload extends Event {
+        @Label("Images")
+        int images;
+
+        @Label("Threads")
+        int threads;
+    }
+
+    @Name("game.SpawnBatch")
+    @Label("Spawn Batch")
+    @Category("Game")
+    @Description("Sampling positions for one GameWorld.spawnEnemies() call")
+    public static final class SpawnBatch extends Event {
+        @Label("Enemies")
+        int enemies;
+    }
+}
@@ -10,7 +10,19 @@ public abstract class GameObject {
         this.sprite = sprite;
     }
 
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public Sprite getSprite() {
+        return sprite;
+    }
+
     public void draw(Graphics g) {
-        g.drawImage(sprite.getImage(), x, y, null);
+        sprite.draw(g, x, y);
     }
 }
@@ -0,0 +1,59 @@
+// Hands out the random streams used by spawning and by the enemy update,
+// all derived from one seed so a run can be reproduced.
+//
+// PER_ENTITY reseeds a xorshift stream from (seed, tick, enemy index) before
+// each enemy moves, so results do not depend on how enemies are chunked.
+// PER_CHUNK seeds one SplittableRandom per (seed, tick, chunk), which is
+// cheaper but only reproducible for the same chunk size.
+public class GameRandom {
+    public enum Mode { PER_ENTITY, PER_CHUNK }
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private final Mode mode;
+
+    public GameRandom(long seed) {
+        this(seed, Mode.PER_ENTITY);
+    }
+
+    public GameRandom(long seed, Mode mode) {
+        this.seed = seed;
+        this.mode = mode;
+    }
+
+    // Stream for one chunk of the update step
+    public RandomStream chunkStream(long tick, int chunk) {
+        if (mode == Mode.PER_CHUNK) {
+            return new SplittableRandomStream(mix(seed ^ mix(tick * GOLDEN_GAMMA + chunk)));
+        }
+        return new XorShiftRandom(seed);
+    }
+
+    // Called before each enemy moves
+    public void beginEntity(RandomStream stream, long tick, int index) {
+        if (mode == Mode.PER_ENTITY) {
+            stream.reseed(seed ^ mix(tick * GOLDEN_GAMMA + index));
+        }
+    }
+
+    // Stream for spawn positions and types
+    public XorShiftRandom spawnStream() {
+        return new XorShiftRandom(seed + GOLDEN_GAMMA);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // SplitMix64 finalizer
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,56 +1,98 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GameWorld {
-    private final Tile[][] map;
-    private final ArrayList<GameObject> entities;
+    private final WorldMap map;
+    // Only the simulation thread touches the store. Other threads read the
+    // published view and hand new enemies over through pendingSpawns.
+    private final EnemyStore enemies;
+    private final Queue<SpawnBatch> pendingSpawns = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSpawnCount = new AtomicInteger();
+    private volatile EnemyList publishedEnemies;
+    private final SpatialGrid spatialGrid;
+    private final GameRandom random;
+    // Guarded by itself: spawns may come from any thread
+    private final XorShiftRandom spawnRandom;
+    // Built by the simulation thread in streamMap(), read by spawners
+    private volatile SpawnTiles spawnTiles;
     private Player player;
     private final int width;
     private final int height;
 
     public GameWorld(int width, int height) {
-        this.width = width;
-        this.height = height;
-        this.map = new Tile[height][width];
-        this.entities = new ArrayList<>();
+        this(width, height, true, new GameRandom(System.nanoTime()));
+    }
+
+    // structureOfArrays = false keeps one object per enemy, for comparison
+    public GameWorld(int width, int height, boolean structureOfArrays, GameRandom random) {
+        this(createMap(width, height), structureOfArrays, random);
+    }
 
-        initializeMap();
-        initializeEntities();
+    public GameWorld(WorldMap map, boolean structureOfArrays, GameRandom random) {
+        this(map, structureOfArrays, random, null);
     }
 
-    private void initializeMap() {
+    // With player == null the player and the first enemies are created as
+    // usual; otherwise the world starts empty around the given player, to be
+    // filled by WorldSnapshot
+    GameWorld(WorldMap map, boolean structureOfArrays, GameRandom random, Player player) {
+        SpriteFactory.awaitPreload();
+        this.map = map;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.random = random;
+        this.spawnRandom = random.spawnStream();
+        this.enemies = structureOfArrays ? new SoaEnemyStore() : new ObjectEnemyStore();
+        this.spatialGrid = new SpatialGrid(width, height, enemies);
+        this.publishedEnemies = new EnemyList(enemies, 0);
+
+        if (player == null) {
+            initializeEntities();
+        } else {
+            this.player = player;
+            streamMap();
+        }
+    }
+
+    private static TileMap createMap(int width, int height) {
+        // Tiles need their sprites; wait for all images at once rather than
+        // decoding them one at a time as each type is first used
+        SpriteFactory.awaitPreload();
+        TileMap map = new TileMap(width, height);
+
         // Create different types of tiles but reuse sprites
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
-                String tileType;
-                boolean walkable = true;
+                TileType type;
 
                 if (x == 0 || y == 0 || x == width-1 || y == height-1) {
-                    tileType = "wall";
-                    walkable = false;
+                    type = TileType.WALL;
                 }
                 // Create three fixed lakes
                 else if (isLake1(x, y) || isLake2(x, y) || isLake3(x, y)) {
-                    tileType = "water";
-                    walkable = false;
+                    type = TileType.WATER;
                 } else if ((x + y) % 5 == 0) {
-                    tileType = "grass";
+                    type = TileType.GRASS;
                 } else {
-                    tileType = "dirt";
+                    type = TileType.DIRT;
                 }
 
-                map[y][x] = new Tile(x * 16, y * 16, tileType, walkable);
+                map.setType(x, y, type);
             }
         }
+        return map;
     }
 
     // Lake 1: Top-left area
-    private boolean isLake1(int x, int y) {
+    private static boolean isLake1(int x, int y) {
         return x >= 5 && x <= 10 && y >= 5 && y <= 8;
     }
 
     // Lake 2: Center-right area
-    private boolean isLake2(int x, int y) {
+    private static boolean isLake2(int x, int y) {
         int centerX = 25;
         int centerY = 12;
         int radiusSquared = 9; // ~3 tile radius
@@ -58,73 +100,226 @@ public class GameWorld {
     }
 
     // Lake 3: Bottom area
-    private boolean isLake3(int x, int y) {
+    private static boolean isLake3(int x, int y) {
         return x >= 8 && x <= 15 && y >= 18 && y <= 20;
     }
 
     public boolean isWalkable(int x, int y) {
-        // Convert pixel coordinates to tile coordinates
-        int tileX = x / 16;
-        int tileY = y / 16;
+        return map.isWalkable(x, y);
+    }
 
-        // Check if coordinates are within map bounds
-        if (tileX < 0 || tileX >= width || tileY < 0 || tileY >= height) {
-            return false;
-        }
+    // Whether a size x size box at pixel (x, y) touches only walkable tiles;
+    // see WalkabilityMap.canOccupy for the limits on size and position
+    public boolean canOccupy(int x, int y, int size) {
+        return map.canOccupy(x, y, size);
+    }
+
+    // Whether enemies at pixel (x, y) are being simulated
+    public boolean isActive(int x, int y) {
+        return map.isActive(x, y);
+    }
 
-        // Return whether the tile is walkable
-        return map[tileY][tileX].isWalkable();
+    // Loads the map around the player; simulation thread, between ticks.
+    // The spawn tile list is rebuilt here too, when the spawn area has
+    // moved: only this thread sees the map while it is not streaming, so a
+    // list built off it never mistakes a chunk still being loaded for
+    // unwalkable ground.
+    public void streamMap() {
+        if (map.stream(player.getX(), player.getY(), spatialGrid) || spawnTiles == null) {
+            spawnTiles = listSpawnTiles(map.getSpawnArea());
+        }
     }
 
     private void initializeEntities() {
         // Create player
         player = new Player(width / 2 * 16, height / 2 * 16);
+        streamMap();
 
-        // Create only 3 enemies initially - one of each type
-        String[] enemyTypes = {"moblin", "octorok", "darknut"};
-        for (int i = 0; i < 3; i++) {
-            int x, y;
-            boolean validPosition;
-            
-            do {
-                x = (int)(Math.random() * (width - 2) + 1) * 16;
-                y = (int)(Math.random() * (height - 2) + 1) * 16;
-                validPosition = isWalkable(x, y);
-            } while (!validPosition);
-            
-            String type = enemyTypes[i % enemyTypes.length];
-            entities.add(new Enemy(x, y, type));
+        // Create only one enemy of each type initially
+        SpawnBatch batch = new SpawnBatch(EnemyType.count());
+        synchronized (spawnRandom) {
+            SpawnTiles tiles = currentSpawnTiles();
+            for (int id = 0; id < EnemyType.count(); id++) {
+                addRandomSpawn(batch, tiles, id);
+            }
         }
+        queueSpawns(batch);
+        applyPendingSpawns();
     }
 
-    public void addEnemy(Enemy enemy) {
-        entities.add(enemy);
+    // Walkable tiles of one spawn area, as offsets into the area
+    private static final class SpawnTiles {
+        final Rectangle area;
+        final int[] offsets;
+
+        SpawnTiles(Rectangle area, int[] offsets) {
+            this.area = area;
+            this.offsets = offsets;
+        }
+    }
+
+    // Spawn areas of a flat map larger than this are sampled by rejection
+    // instead, so a huge map does not get a list four times the size of its
+    // tiles. A flat map never changes, so sampling it from a spawner thread
+    // is safe; a chunked map may be streaming, so its area is always listed.
+    private static final int MAX_LISTED_TILES = 1 << 22;
+
+    // Simulation thread only, see streamMap()
+    private SpawnTiles listSpawnTiles(Rectangle area) {
+        int[] offsets = null;
+        if ((long) area.width * area.height <= MAX_LISTED_TILES || !(map instanceof TileMap)) {
+            offsets = new int[area.width * area.height];
+            int count = 0;
+            for (int y = 0; y < area.height; y++) {
+                for (int x = 0; x < area.width; x++) {
+                    if (isWalkable((area.x + x) * 16, (area.y + y) * 16)) {
+                        offsets[count++] = y * area.width + x;
+                    }
+                }
+            }
+            offsets = Arrays.copyOf(offsets, count);
+        }
+        return new SpawnTiles(area, offsets);
     }
 
-    // For spawning new enemies
-    public Enemy spawnEnemy() {
-        String[] enemyTypes = {"moblin", "octorok", "darknut"};
+    // An empty area fails the spawn rather than the simulation thread
+    private SpawnTiles currentSpawnTiles() {
+        SpawnTiles tiles = spawnTiles;
+        if (tiles.offsets != null && tiles.offsets.length == 0) {
+            throw new IllegalStateException("No walkable tile to spawn on in " + tiles.area);
+        }
+        return tiles;
+    }
+
+    // Adds one enemy at a random walkable tile of the spawn area.
+    // Caller holds the spawnRandom lock.
+    private void addRandomSpawn(SpawnBatch batch, SpawnTiles tiles, int typeId) {
+        Rectangle area = tiles.area;
         int x, y;
-        boolean validPosition;
-        
-        do {
-            x = (int)(Math.random() * (width - 2) + 1) * 16;
-            y = (int)(Math.random() * (height - 2) + 1) * 16;
-            validPosition = isWalkable(x, y);
-        } while (!validPosition);
-        
-        String type = enemyTypes[(int)(Math.random() * enemyTypes.length)];
-        Enemy enemy = new Enemy(x, y, type);
-        entities.add(enemy);
-        return enemy;
-    }
-
-    public Tile[][] getMap() {
+        if (tiles.offsets != null) {
+            int offset = tiles.offsets[spawnRandom.nextInt(tiles.offsets.length)];
+            x = (area.x + offset % area.width) * 16;
+            y = (area.y + offset / area.width) * 16;
+        } else {
+            do {
+                x = (area.x + spawnRandom.nextInt(area.width)) * 16;
+                y = (area.y + spawnRandom.nextInt(area.height)) * 16;
+            } while (!isWalkable(x, y));
+        }
+        int direction = spawnRandom.nextInt(4);
+        int type = typeId >= 0 ? typeId : spawnRandom.nextInt(EnemyType.count());
+        batch.add(x, y, direction, type, spawnRandom.nextInt(256));
+    }
+
+    // Adds an enemy straight into the store; simulation thread only
+    public Enemy addEnemy(int x, int y, int direction, int typeId, int phase) {
+        int index = enemies.add(x, y, direction, typeId, phase);
+        spatialGrid.insert(index);
+        return new Enemy(enemies, index);
+    }
+
+    // For spawning new enemies. Safe to call from any thread; the enemy
+    // shows up once the simulation thread applies pending spawns.
+    public void spawnEnemy() {
+        spawnEnemies(1);
+    }
+
+    // Spawns count random enemies as one batch, so they all appear in the
+    // same tick. Safe to call from any thread, but it takes a while for big
+    // counts; keep it off the Swing thread.
+    public void spawnEnemies(int count) {
+        GameEvents.SpawnBatch event = new GameEvents.SpawnBatch();
+        event.begin();
+        SpawnBatch batch = new SpawnBatch(count);
+        synchronized (spawnRandom) {
+            SpawnTiles tiles = currentSpawnTiles();
+            for (int i = 0; i < count; i++) {
+                addRandomSpawn(batch, tiles, -1);
+            }
+        }
+        queueSpawns(batch);
+        event.end();
+        if (event.shouldCommit()) {
+            event.enemies = count;
+            event.commit();
+        }
+    }
+
+    public void queueSpawns(SpawnBatch batch) {
+        pendingSpawnCount.addAndGet(batch.size());
+        pendingSpawns.add(batch);
+    }
+
+    // Moves every queued batch into the store and publishes a new view of it.
+    // Called by the simulation thread at the start of a tick.
+    public void applyPendingSpawns() {
+        SpawnBatch batch = pendingSpawns.poll();
+        if (batch == null) {
+            return;
+        }
+        enemies.ensureCapacity(enemies.size() + pendingSpawnCount.get());
+        spatialGrid.ensureCapacity(enemies.size() + pendingSpawnCount.get());
+        while (batch != null) {
+            for (int i = 0; i < batch.size(); i++) {
+                int index = enemies.add(batch.x[i], batch.y[i], batch.direction[i],
+                        batch.typeId[i] & 0xFF, batch.phase[i] & 0xFF);
+                spatialGrid.insert(index);
+            }
+            pendingSpawnCount.addAndGet(-batch.size());
+            batch = pendingSpawns.poll();
+        }
+        publishedEnemies = new EnemyList(enemies, enemies.size());
+    }
+
+    // Position in the spawn stream, so a saved world spawns what the
+    // original would have next (see WorldSnapshot)
+    long getSpawnState() {
+        synchronized (spawnRandom) {
+            return spawnRandom.getState();
+        }
+    }
+
+    void setSpawnState(long state) {
+        synchronized (spawnRandom) {
+            spawnRandom.setState(state);
+        }
+    }
+
+    // Indexes and publishes enemies that were written straight into the
+    // store from index first on; simulation thread only
+    void publishRestoredEnemies(int first) {
+        for (int index = first; index < enemies.size(); index++) {
+            spatialGrid.insert(index);
+        }
+        publishedEnemies = new EnemyList(enemies, enemies.size());
+    }
+
+    public int getPendingSpawnCount() {
+        return pendingSpawnCount.get();
+    }
+
+    public WorldMap getMap() {
         return map;
     }
 
-    public synchronized List<GameObject> getEntities() {
-        return (List<GameObject>) this.entities.clone();
+    // Snapshot of the enemies as of the last applied spawns. No lock and no
+    // copy: the view is rebuilt only when a spawn batch lands.
+    public EnemyList getEntities() {
+        return publishedEnemies;
+    }
+
+    public GameRandom getRandom() {
+        return random;
+    }
+
+    // Spatial index over the live store, for the simulation thread
+    public SpatialGrid getSpatialGrid() {
+        return spatialGrid;
+    }
+
+    // Live store, for the simulation thread
+    public EnemyStore getEnemies() {
+        return enemies;
     }
 
     public Player getPlayer() {
@@ -0,0 +1,223 @@
+import metrics.MemoryMetrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// Runs the simulation without Swing: builds a GameWorld, spawns enemies and
+// steps it with the same fixed-timestep loop as Game.run(), then prints
+// throughput, tick latency percentiles and heap usage. For load tests on
+// machines without a display:
+//
+//   java -Djava.awt.headless=true -cp out HeadlessGame --enemies 1000000 --ticks 600 --rate 0
+//
+// Options:
+//   --enemies N     enemies spawned before the first tick (default 100000)
+//   --ticks N       ticks to run (default 600)
+//   --rate HZ       ticks per second, 0 = as fast as possible (default 60)
+//   --threads N     enemy update threads (default: available processors)
+//   --chunk-size N  enemies per update chunk (default 4096)
+//   --seed N        random seed (default: current time)
+//   --width N       world width in tiles (default 37)
+//   --height N      world height in tiles (default 25)
+//   --chunked B     stream the map in chunks around the player (default false)
+//   --chunk-radius N    chunks kept loaded around the player (default 2)
+//   --chunk-budget-mb N memory for cached chunks (default 16)
+//   --collisions B  enemies block each other and the player (default true)
+//   --chase B       enemies near the player walk towards it (default false)
+//   --load FILE     start from a WorldSnapshot instead of building and
+//                   spawning a world; the file then decides what --enemies,
+//                   --seed, --width, --height, --chunked, --chunk-radius and
+//                   --chunk-budget-mb would have (the rest still apply)
+//   --save FILE     write a WorldSnapshot of the starting world, so later
+//                   runs can --load the same one
+//   --max-p99-ms MS exit with status 1 if the p99 tick time is over MS, as
+//                   a scripted check that a setup keeps its per-tick cost
+//                   bounded, e.g. 100000 enemies with
+//                   --chase true --collisions true --rate 0 --max-p99-ms 50
+public class HeadlessGame {
+    private final GameWorld world;
+    private final EnemySimulation simulation;
+    private final long[] tickNanos;
+    private int ticks = 0;
+
+    public HeadlessGame(GameWorld world, EnemySimulation simulation, int maxTicks) {
+        this.world = world;
+        this.simulation = simulation;
+        this.tickNanos = new long[maxTicks];
+    }
+
+    // Runs maxTicks ticks at ticksPerSecond, or back to back if it is 0
+    public void run(double ticksPerSecond) {
+        long lastTime = System.nanoTime();
+        double ns = ticksPerSecond > 0 ? 1000000000 / ticksPerSecond : 0;
+        double delta = 0;
+
+        while (ticks < tickNanos.length) {
+            if (ns == 0) {
+                tick();
+                continue;
+            }
+
+            long now = System.nanoTime();
+            delta += (now - lastTime) / ns;
+            lastTime = now;
+
+            while (delta >= 1 && ticks < tickNanos.length) {
+                tick();
+                delta--;
+            }
+            if (delta < 1) {
+                // Nothing to render here, so sleep instead of spinning
+                long sleepNanos = (long) ((1 - delta) * ns);
+                try {
+                    Thread.sleep(sleepNanos / 1000000, (int) (sleepNanos % 1000000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void tick() {
+        long start = System.nanoTime();
+        simulation.step();
+        tickNanos[ticks++] = System.nanoTime() - start;
+    }
+
+    public void printReport(long wallNanos) {
+        long[] sorted = Arrays.copyOf(tickNanos, ticks);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long nanos : sorted) {
+            total += nanos;
+        }
+
+        System.out.printf("Enemies:      %,d (%d update threads)%n", world.getEntities().size(), simulation.getThreads());
+        System.out.printf("Collisions:   %,d moves blocked, %d enemies touching the player in the last tick%n",
+                simulation.getBlockedMoves(), simulation.getPlayerContacts());
+        if (simulation.isChasing()) {
+            FlowField field = simulation.getFlowField();
+            System.out.printf("Flow field:   radius %d, %,d tiles reach the player, searched %d times%n",
+                    field.getRadius(), field.getReachableTiles(), field.getUpdates());
+        }
+        System.out.printf("Ticks:        %,d in %.2f s = %.1f ticks/s (%.1f ticks/s of pure update time)%n",
+                ticks, wallNanos / 1e9, ticks / (wallNanos / 1e9), ticks / (total / 1e9));
+        System.out.printf("Tick latency: p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.90) / 1e6,
+                percentile(sorted, 0.99) / 1e6, (ticks > 0 ? sorted[ticks - 1] : 0) / 1e6);
+
+        long liveHeap = MemoryMetrics.liveHeapAfterGc();
+        System.out.printf("Heap:         %,d MB used, live after last GC: %s%n",
+                MemoryMetrics.heapUsed() / 1024 / 1024,
+                liveHeap < 0 ? "no GC yet" : String.format("%,d MB", liveHeap / 1024 / 1024));
+    }
+
+    public double getP99Millis() {
+        long[] sorted = Arrays.copyOf(tickNanos, ticks);
+        Arrays.sort(sorted);
+        return percentile(sorted, 0.99) / 1e6;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        // Decode sprites while the arguments are parsed; GameWorld waits for them
+        SpriteFactory.preload();
+
+        int enemies = 100_000;
+        int ticks = 600;
+        double rate = 60;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int chunkSize = EnemySimulation.DEFAULT_CHUNK_SIZE;
+        long seed = System.nanoTime();
+        int width = 600 / 16;
+        int height = 400 / 16;
+        boolean chunked = false;
+        int chunkRadius = 2;
+        long chunkBudgetMb = 16;
+        boolean collisions = true;
+        boolean chase = false;
+        Path load = null;
+        Path save = null;
+        double maxP99Millis = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i].replace("_", "");
+            switch (option) {
+                case "--enemies": enemies = Integer.parseInt(value); break;
+                case "--ticks": ticks = Integer.parseInt(value); break;
+                case "--rate": rate = Double.parseDouble(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--chunk-size": chunkSize = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--width": width = Integer.parseInt(value); break;
+                case "--height": height = Integer.parseInt(value); break;
+                case "--chunked": chunked = Boolean.parseBoolean(value); break;
+                case "--chunk-radius": chunkRadius = Integer.parseInt(value); break;
+                case "--chunk-budget-mb": chunkBudgetMb = Long.parseLong(value); break;
+                case "--collisions": collisions = Boolean.parseBoolean(value); break;
+                case "--chase": chase = Boolean.parseBoolean(value); break;
+                case "--load": load = Paths.get(args[i]); break;
+                case "--save": save = Paths.get(args[i]); break;
+                case "--max-p99-ms": maxP99Millis = Double.parseDouble(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        GameWorld world;
+        long startTick = 0;
+        if (load != null) {
+            long loadStart = System.nanoTime();
+            WorldSnapshot snapshot = WorldSnapshot.load(load, true);
+            world = snapshot.getWorld();
+            startTick = snapshot.getTick();
+            System.out.printf("Loaded %,d enemies from %s in %.1f ms (seed %d, tick %d)%n",
+                    world.getEntities().size(), load, (System.nanoTime() - loadStart) / 1e6,
+                    world.getRandom().getSeed(), startTick);
+        } else {
+            GameRandom random = new GameRandom(seed);
+            world = chunked
+                    ? new GameWorld(new ChunkedWorldMap(width, height, seed, chunkRadius, chunkBudgetMb * 1024 * 1024), true, random)
+                    : new GameWorld(width, height, true, random);
+            long spawnStart = System.nanoTime();
+            world.spawnEnemies(enemies);
+            world.applyPendingSpawns();
+            System.out.printf("Spawned %,d enemies in %.1f ms (seed %d)%n",
+                    enemies, (System.nanoTime() - spawnStart) / 1e6, seed);
+        }
+
+        if (save != null) {
+            long saveStart = System.nanoTime();
+            WorldSnapshot.save(world, startTick, save);
+            System.out.printf("Saved snapshot to %s in %.1f ms%n", save, (System.nanoTime() - saveStart) / 1e6);
+        }
+
+        EnemySimulation simulation = new EnemySimulation(world, threads, chunkSize, collisions);
+        simulation.setTick(startTick);
+        simulation.setChasing(chase);
+        HeadlessGame game = new HeadlessGame(world, simulation, ticks);
+        long start = System.nanoTime();
+        game.run(rate);
+        game.printReport(System.nanoTime() - start);
+
+        if (maxP99Millis > 0 && game.getP99Millis() > maxP99Millis) {
+            System.out.printf("FAILED:       p99 tick time %.3f ms is over the %.3f ms budget%n",
+                    game.getP99Millis(), maxP99Millis);
+            System.exit(1);
+        }
+    }
+}
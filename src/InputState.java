@@ -0,0 +1,54 @@
+import java.awt.event.KeyEvent;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Movement keys as two lock-free bitsets: the keys held down right now, and
+// the keys pressed since the simulation last looked. The Swing thread only
+// flips bits; the simulation thread polls once per tick and moves the
+// player itself, so speed no longer depends on the key-repeat rate and the
+// player is never written from two threads.
+public class InputState {
+    public static final int UP = 1;
+    public static final int DOWN = 1 << 1;
+    public static final int LEFT = 1 << 2;
+    public static final int RIGHT = 1 << 3;
+
+    private final AtomicInteger held = new AtomicInteger();
+    // Keeps a tap shorter than one tick from being lost
+    private final AtomicInteger pressed = new AtomicInteger();
+
+    // Swing thread
+    public void keyPressed(int keyCode) {
+        int bit = bitFor(keyCode);
+        if (bit != 0) {
+            held.getAndUpdate(keys -> keys | bit);
+            pressed.getAndUpdate(keys -> keys | bit);
+        }
+    }
+
+    public void keyReleased(int keyCode) {
+        int bit = bitFor(keyCode);
+        if (bit != 0) {
+            held.getAndUpdate(keys -> keys & ~bit);
+        }
+    }
+
+    // Key releases are not delivered once the window loses focus
+    public void releaseAll() {
+        held.set(0);
+    }
+
+    // Simulation thread, once per tick: the keys that count for this tick
+    public int poll() {
+        return held.get() | pressed.getAndSet(0);
+    }
+
+    private static int bitFor(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_UP: return UP;
+            case KeyEvent.VK_DOWN: return DOWN;
+            case KeyEvent.VK_LEFT: return LEFT;
+            case KeyEvent.VK_RIGHT: return RIGHT;
+            default: return 0;
+        }
+    }
+}
@@ -1,15 +1,19 @@
+import metrics.MemoryMetrics;
+
 import javax.swing.*;
 import java.awt.*;
 import java.text.NumberFormat;
 
 public class MemoryUsageView extends JPanel {
     private final GameWorld world;
+    private final PerformanceStats stats;
     private final Runtime runtime = Runtime.getRuntime();
     private final NumberFormat format = NumberFormat.getInstance();
 
-    public MemoryUsageView(GameWorld world) {
+    public MemoryUsageView(GameWorld world, PerformanceStats stats) {
         this.world = world;
-        setPreferredSize(new Dimension(300, 150));
+        this.stats = stats;
+        setPreferredSize(new Dimension(300, 330));
         setBackground(Color.BLACK);
         setBorder(BorderFactory.createLineBorder(Color.WHITE));
     }
@@ -21,18 +25,38 @@ public class MemoryUsageView extends JPanel {
         g.setColor(Color.WHITE);
         g.setFont(new Font("Monospaced", Font.BOLD, 12));
 
-        int totalObjects = world.getWidth() * world.getHeight() + 1 + world.getEntities().size();
+        EnemyList enemies = world.getEntities();
+        // Loaded cells only: a chunked map holds just its resident chunks
+        long[] tileCounts = world.getMap().countTypes();
+        long loadedTiles = 0;
+        for (long count : tileCounts) {
+            loadedTiles += count;
+        }
+        long totalObjects = loadedTiles + 1 + enemies.size();
         int uniqueSprites = SpriteFactory.getSpriteCount();
-        int objectsSaved = totalObjects - uniqueSprites;
+        long objectsSaved = totalObjects - uniqueSprites;
+
+        // Measured sprite pixel data: the atlas every sprite shares, spare
+        // room included, versus what noflyweight holds when every object
+        // loads its own copy
+        long sharedSpriteBytes = SpriteFactory.getAtlas().getImageBytes();
+        long perObjectSpriteBytes = world.getPlayer().getSprite().getImageBytes();
+        for (int id = 0; id < tileCounts.length; id++) {
+            perObjectSpriteBytes += tileCounts[id] * TileType.byId(id).getSprite().getImageBytes();
+        }
+        long[] enemyCounts = enemies.countTypes();
+        for (int id = 0; id < enemyCounts.length; id++) {
+            perObjectSpriteBytes += enemyCounts[id] * EnemyType.byId(id).getSprite().getImageBytes();
+        }
+        long enemyBytes = enemies.getBytesPerEnemy() * enemies.size();
+        long tileBytes = world.getMap().getBytes();
+        long liveHeap = MemoryMetrics.liveHeapAfterGc();
 
         // Calculate memory usage
         long usedMemory = runtime.totalMemory() - runtime.freeMemory();
         String usedMemoryStr = format.format(usedMemory / 1024 / 1024);
         String totalMemoryStr = format.format(runtime.totalMemory() / 1024 / 1024);
 
-        // Theoretical memory saved calculation (assume 4KB per sprite)
-        long theoreticalSaving = objectsSaved * 4L; // KB
-
         // Display statistics
         int y = 20;
         g.drawString("FLYWEIGHT PATTERN MEMORY ECONOMY", 10, y);
@@ -43,8 +67,19 @@ public class MemoryUsageView extends JPanel {
         y += 15;
         g.drawString("Objects saved by flyweight: " + objectsSaved, 10, y);
         y += 15;
-        g.drawString("Theoretical memory saved: ~" + theoreticalSaving + " KB", 10, y);
+        g.drawString("Sprite pixels, flyweight: " + format.format(sharedSpriteBytes / 1024) + " KB"
+                + "  | noflyweight: " + format.format(perObjectSpriteBytes / 1024) + " KB", 10, y);
+        y += 15;
+        g.drawString("Measured memory saved: " + format.format((perObjectSpriteBytes - sharedSpriteBytes) / 1024) + " KB", 10, y);
+        y += 15;
+        g.drawString("Enemy state: " + enemies.getBytesPerEnemy() + " B each, "
+                + format.format(enemyBytes / 1024) + " KB total", 10, y);
+        y += 15;
+        g.drawString("Tile map: 1 B per cell, " + format.format(tileBytes / 1024) + " KB total", 10, y);
         y += 20;
+        g.drawString("Live heap after last GC: "
+                + (liveHeap < 0 ? "no GC yet" : format.format(liveHeap / 1024 / 1024) + " MB"), 10, y);
+        y += 15;
         g.drawString("Current memory: " + usedMemoryStr + " MB / " + totalMemoryStr + " MB", 10, y);
 
         // Draw memory bar
@@ -61,5 +96,23 @@ public class MemoryUsageView extends JPanel {
 
         g.setColor(Color.WHITE);
         g.drawRect(10, y, barWidth, barHeight);
+
+        // Game loop timings over the last second
+        PerformanceStats.Report report = stats.getReport();
+        y += barHeight + 20;
+        g.drawString("GAME LOOP (last second): " + report.frames + " FPS, " + report.ticks + " ticks", 10, y);
+        y += 15;
+        g.drawString(String.format("Update p50/p99/max: %.2f / %.2f / %.2f ms",
+                report.updateP50, report.updateP99, report.updateMax), 10, y);
+        y += 15;
+        g.drawString(String.format("Render p50/p99/max: %.2f / %.2f / %.2f ms",
+                report.renderP50, report.renderP99, report.renderMax), 10, y);
+        y += 15;
+        g.drawString("Allocated per tick: " + format.format((long) report.allocationPerTick) + " B"
+                + "  | max backlog: " + String.format("%.1f", report.maxBacklog) + " ticks"
+                + (report.droppedTicks > 0 ? ", " + report.droppedTicks + " dropped" : ""), 10, y);
+        y += 15;
+        g.drawString(String.format("GC pauses: %d, max %.0f ms, total %.0f ms",
+                report.gcPauses, report.gcPauseMax, report.gcPauseTotal), 10, y);
     }
 }
@@ -0,0 +1,147 @@
+import metrics.MemoryMetrics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+// The original layout: one heap object per enemy holding its own fields
+// and a pointer to its EnemyType. Kept so both layouts can be compared.
+public class ObjectEnemyStore implements EnemyStore {
+    private final ArrayList<Slot> slots = new ArrayList<>();
+    private final long[] typeCounts = new long[EnemyType.count()];
+
+    private static class Slot {
+        private final EnemyType type;
+        private int x, y;
+        private int moveDirection;
+        private int moveCooldown;
+        private final byte phase;
+
+        Slot(int x, int y, int moveDirection, EnemyType type, int phase) {
+            this.x = x;
+            this.y = y;
+            this.moveDirection = moveDirection;
+            this.type = type;
+            this.phase = (byte) phase;
+        }
+    }
+
+    @Override
+    public int size() {
+        return slots.size();
+    }
+
+    @Override
+    public int add(int x, int y, int direction, int typeId, int phase) {
+        slots.add(new Slot(x, y, direction, EnemyType.byId(typeId), phase));
+        typeCounts[typeId]++;
+        return slots.size() - 1;
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        slots.ensureCapacity(capacity);
+    }
+
+    @Override
+    public int getX(int index) {
+        return slots.get(index).x;
+    }
+
+    @Override
+    public int getY(int index) {
+        return slots.get(index).y;
+    }
+
+    @Override
+    public void setPosition(int index, int x, int y) {
+        Slot slot = slots.get(index);
+        slot.x = x;
+        slot.y = y;
+    }
+
+    @Override
+    public int getDirection(int index) {
+        return slots.get(index).moveDirection;
+    }
+
+    @Override
+    public void setDirection(int index, int direction) {
+        slots.get(index).moveDirection = direction;
+    }
+
+    @Override
+    public int getCooldown(int index) {
+        return slots.get(index).moveCooldown;
+    }
+
+    @Override
+    public void setCooldown(int index, int cooldown) {
+        slots.get(index).moveCooldown = cooldown;
+    }
+
+    @Override
+    public int getTypeId(int index) {
+        return slots.get(index).type.getId() & 0xFF;
+    }
+
+    @Override
+    public Sprite getSprite(int index) {
+        return slots.get(index).type.getSprite();
+    }
+
+    @Override
+    public int getPhase(int index) {
+        return slots.get(index).phase & 0xFF;
+    }
+
+    @Override
+    public long[] countTypes() {
+        return typeCounts.clone();
+    }
+
+    @Override
+    public void writeColumns(ByteBuffer buffer) {
+        for (Slot slot : slots) {
+            buffer.putInt(slot.x);
+        }
+        for (Slot slot : slots) {
+            buffer.putInt(slot.y);
+        }
+        for (Slot slot : slots) {
+            buffer.putShort((short) slot.moveCooldown);
+        }
+        for (Slot slot : slots) {
+            buffer.put((byte) slot.moveDirection);
+        }
+        for (int i = 0; i < slots.size(); i++) {
+            buffer.put((byte) getTypeId(i));
+        }
+        for (Slot slot : slots) {
+            buffer.put(slot.phase);
+        }
+    }
+
+    @Override
+    public void readColumns(ByteBuffer buffer, int count) {
+        // Absolute reads, since every slot needs one value from each column
+        int base = buffer.position();
+        int yBase = base + count * Integer.BYTES;
+        int cooldownBase = yBase + count * Integer.BYTES;
+        int directionBase = cooldownBase + count * Short.BYTES;
+        int typeBase = directionBase + count;
+        int phaseBase = typeBase + count;
+        slots.ensureCapacity(slots.size() + count);
+        for (int i = 0; i < count; i++) {
+            int index = add(buffer.getInt(base + i * Integer.BYTES), buffer.getInt(yBase + i * Integer.BYTES),
+                    buffer.get(directionBase + i), buffer.get(typeBase + i) & 0xFF, buffer.get(phaseBase + i) & 0xFF);
+            slots.get(index).moveCooldown = buffer.getShort(cooldownBase + i * Short.BYTES);
+        }
+        buffer.position(phaseBase + count);
+    }
+
+    @Override
+    public long getBytesPerEnemy() {
+        // The Slot itself (one reference, four ints, a byte) plus its list entry
+        return MemoryMetrics.shallowSize(1, 4 * Integer.BYTES + Byte.BYTES) + MemoryMetrics.REFERENCE_BYTES;
+    }
+}
@@ -0,0 +1,148 @@
+import metrics.GcPauses;
+import metrics.Histogram;
+import metrics.MemoryMetrics;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+// Timings for the game loop. The simulation thread records update times,
+// allocation per tick and tick backlog, the render thread records frame
+// times, both into lock-free histograms. Once a second the simulation
+// thread closes an interval, which becomes the Report shown by
+// MemoryUsageView and, if a CSV file was given, one row of that file.
+//
+// Allocation is measured on the simulation thread only, so with several
+// update threads whatever the pool workers allocate is not included.
+public class PerformanceStats {
+    private final Histogram update = new Histogram();
+    private final Histogram render = new Histogram();
+    private final Histogram allocation = new Histogram();
+    private final GcPauses gcPauses = new GcPauses();
+    private final PrintWriter csv;
+    private final long startNanos = System.nanoTime();
+
+    // Simulation thread only
+    private Histogram.Snapshot lastUpdate = update.snapshot();
+    private Histogram.Snapshot lastRender = render.snapshot();
+    private Histogram.Snapshot lastAllocation = allocation.snapshot();
+    private Histogram.Snapshot lastGcPauses = gcPauses.getPauses().snapshot();
+    private double maxBacklog;
+    private long droppedTicks;
+    private long updateStart;
+    private long allocatedAtUpdateStart;
+
+    private volatile Report report = new Report();
+
+    // csvPath may be null for no CSV output
+    public PerformanceStats(String csvPath) throws IOException {
+        if (csvPath == null) {
+            csv = null;
+            return;
+        }
+        csv = new PrintWriter(new FileWriter(csvPath));
+        csv.println("seconds,fps,ticks,update_p50_ms,update_p99_ms,update_max_ms,"
+                + "render_p50_ms,render_p99_ms,render_max_ms,alloc_per_tick_bytes,max_backlog_ticks,"
+                + "dropped_ticks,gc_pauses,gc_pause_max_ms,gc_pause_total_ms");
+    }
+
+    // Ticks owed by the fixed-timestep loop before it catches up; keeps
+    // growing when updates cannot keep pace
+    public void recordBacklog(double ticks) {
+        maxBacklog = Math.max(maxBacklog, ticks);
+    }
+
+    // Owed ticks the loop gave up on rather than run late
+    public void recordDroppedTicks(long ticks) {
+        droppedTicks += ticks;
+    }
+
+    public void beginUpdate() {
+        allocatedAtUpdateStart = MemoryMetrics.threadAllocatedBytes();
+        updateStart = System.nanoTime();
+    }
+
+    public void endUpdate() {
+        update.record(System.nanoTime() - updateStart);
+        allocation.record(MemoryMetrics.threadAllocatedBytes() - allocatedAtUpdateStart);
+    }
+
+    public void recordRender(long nanos) {
+        render.record(nanos);
+    }
+
+    // Called by the simulation thread once per reporting interval
+    public void closeInterval(int frames) {
+        Histogram.Snapshot updateNow = update.snapshot();
+        Histogram.Snapshot renderNow = render.snapshot();
+        Histogram.Snapshot allocationNow = allocation.snapshot();
+        Histogram.Snapshot gcPausesNow = gcPauses.getPauses().snapshot();
+
+        Report next = new Report(frames, updateNow.since(lastUpdate), renderNow.since(lastRender),
+                allocationNow.since(lastAllocation), maxBacklog, droppedTicks, gcPausesNow.since(lastGcPauses));
+        lastUpdate = updateNow;
+        lastRender = renderNow;
+        lastAllocation = allocationNow;
+        lastGcPauses = gcPausesNow;
+        maxBacklog = 0;
+        droppedTicks = 0;
+        report = next;
+
+        if (csv != null) {
+            csv.printf("%.1f,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.0f,%.2f,%d,%d,%.0f,%.0f%n",
+                    (System.nanoTime() - startNanos) / 1e9, next.frames, next.ticks,
+                    next.updateP50, next.updateP99, next.updateMax,
+                    next.renderP50, next.renderP99, next.renderMax,
+                    next.allocationPerTick, next.maxBacklog, next.droppedTicks,
+                    next.gcPauses, next.gcPauseMax, next.gcPauseTotal);
+            csv.flush();
+        }
+    }
+
+    // The last closed interval; safe to read from any thread
+    public Report getReport() {
+        return report;
+    }
+
+    public void close() {
+        if (csv != null) {
+            csv.close();
+        }
+    }
+
+    // One interval's numbers, times in milliseconds
+    public static final class Report {
+        public final int frames;
+        public final long ticks;
+        public final double updateP50, updateP99, updateMax;
+        public final double renderP50, renderP99, renderMax;
+        public final double allocationPerTick;
+        public final double maxBacklog;
+        public final long droppedTicks;
+        public final long gcPauses;
+        public final double gcPauseMax, gcPauseTotal;
+
+        private Report() {
+            this(0, Histogram.EMPTY, Histogram.EMPTY, Histogram.EMPTY, 0, 0, Histogram.EMPTY);
+        }
+
+        private Report(int frames, Histogram.Snapshot update, Histogram.Snapshot render,
+                       Histogram.Snapshot allocation, double maxBacklog, long droppedTicks,
+                       Histogram.Snapshot gcPauses) {
+            this.frames = frames;
+            this.ticks = update.getCount();
+            this.updateP50 = update.getPercentile(0.50) / 1e6;
+            this.updateP99 = update.getPercentile(0.99) / 1e6;
+            this.updateMax = update.getMax() / 1e6;
+            this.renderP50 = render.getPercentile(0.50) / 1e6;
+            this.renderP99 = render.getPercentile(0.99) / 1e6;
+            this.renderMax = render.getMax() / 1e6;
+            this.allocationPerTick = allocation.getMean();
+            this.maxBacklog = maxBacklog;
+            this.droppedTicks = droppedTicks;
+            this.gcPauses = gcPauses.getCount();
+            this.gcPauseMax = gcPauses.getMax() / 1e6;
+            this.gcPauseTotal = gcPauses.getTotal() / 1e6;
+        }
+    }
+}
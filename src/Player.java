@@ -1,6 +1,38 @@
 public class Player extends GameObject {
+    public static final int SPEED = 2; // pixels per tick
+    public static final int SIZE = 16; // edge of the collision box
+    private static final Animation ANIMATION = SpriteFactory.getAnimation("sprites/link.png", "player", 2, 4, 8);
+
+    private int facing = 2; // direction last moved in, down at the start
+
     public Player(int x, int y) {
-        super(x, y, SpriteFactory.getSprite("sprites/link.png", "player"));
+        super(x, y, ANIMATION.getSprite());
+    }
+
+    public static Animation getAnimation() {
+        return ANIMATION;
+    }
+
+    // Direction of the last move, as for enemies: 0 up, then clockwise
+    public int getFacing() {
+        return facing;
+    }
+
+    // Moves by SPEED along each held direction (InputState bits); called by
+    // the simulation thread once per tick. Axes move separately so the
+    // player slides along walls when going diagonally.
+    public void update(int keys, GameWorld world) {
+        int dx = ((keys & InputState.RIGHT) != 0 ? SPEED : 0) - ((keys & InputState.LEFT) != 0 ? SPEED : 0);
+        int dy = ((keys & InputState.DOWN) != 0 ? SPEED : 0) - ((keys & InputState.UP) != 0 ? SPEED : 0);
+        if (dx != 0) {
+            facing = dx > 0 ? 1 : 3;
+            move(dx, 0, world);
+        }
+        // Going diagonally, face up or down
+        if (dy != 0) {
+            facing = dy > 0 ? 2 : 0;
+            move(0, dy, world);
+        }
     }
 
     public void move(int dx, int dy, GameWorld world) {
@@ -8,10 +40,7 @@ public class Player extends GameObject {
         int newY = y + dy;
 
         // Check if the new position is walkable (checking all corners of 16x16 sprite)
-        if (world.isWalkable(newX, newY) &&
-                world.isWalkable(newX + 15, newY) &&
-                world.isWalkable(newX, newY + 15) &&
-                world.isWalkable(newX + 15, newY + 15)) {
+        if (world.canOccupy(newX, newY, SIZE)) {
             this.x = newX;
             this.y = newY;
         }
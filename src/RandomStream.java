@@ -0,0 +1,10 @@
+// One stream of random decisions. Streams are not thread-safe: each worker
+// (or each entity, see GameRandom) gets its own instead of all threads
+// sharing the single CAS-guarded Random behind Math.random().
+public interface RandomStream {
+    void reseed(long seed);
+
+    int nextInt(int bound);
+
+    double nextDouble();
+}
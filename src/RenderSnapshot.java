@@ -0,0 +1,51 @@
+import java.util.Arrays;
+
+// What the render thread needs for one frame, captured by the simulation
+// thread after a tick: the player and the enemies around the viewport, each
+// with its position one tick earlier so frames can be drawn in between.
+// Filled by SnapshotPublisher; once published it is not written again while
+// the render thread holds it (see TripleBuffer).
+public class RenderSnapshot {
+    long publishedNanos;
+    long tick; // picks animation frames
+    int playerX, playerY;
+    int playerFacing;
+    int previousPlayerX, previousPlayerY;
+    int totalEnemies;
+
+    // The first count entries are the enemies near the viewport
+    int count;
+    int[] x = new int[0];
+    int[] y = new int[0];
+    int[] previousX = new int[0];
+    int[] previousY = new int[0];
+    byte[] typeId = new byte[0];
+    byte[] direction = new byte[0];
+    byte[] phase = new byte[0];
+
+    void ensureCapacity(int capacity) {
+        if (capacity > x.length) {
+            int grown = Math.max(capacity, x.length + (x.length >> 1));
+            x = Arrays.copyOf(x, grown);
+            y = Arrays.copyOf(y, grown);
+            previousX = Arrays.copyOf(previousX, grown);
+            previousY = Arrays.copyOf(previousY, grown);
+            typeId = Arrays.copyOf(typeId, grown);
+            direction = Arrays.copyOf(direction, grown);
+            phase = Arrays.copyOf(phase, grown);
+        }
+    }
+
+    // System.nanoTime() when the simulation published it
+    public long getPublishedNanos() {
+        return publishedNanos;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getTotalEnemies() {
+        return totalEnemies;
+    }
+}
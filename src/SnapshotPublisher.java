@@ -0,0 +1,100 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Simulation-thread side of the render pipeline. After each tick it copies
+// the player and the enemies around the viewport into a RenderSnapshot and
+// publishes it through a TripleBuffer, so the render thread never reads the
+// live EnemyStore and neither thread waits for the other.
+public class SnapshotPublisher implements IntConsumer {
+    // Extra pixels captured around the viewport, since the renderer may draw
+    // the camera up to one tick of player movement away from where it is now
+    private static final int MARGIN = 32;
+
+    private final GameWorld world;
+    private final int viewWidth;
+    private final int viewHeight;
+    private final TripleBuffer<RenderSnapshot> buffer = new TripleBuffer<>(RenderSnapshot::new);
+
+    // Each enemy's position as of the last snapshot it was in, and which
+    // snapshot that was
+    private int[] lastX = new int[0];
+    private int[] lastY = new int[0];
+    private int[] lastSeen = new int[0];
+    // Starts at 1 so the zeroed lastSeen of a new enemy never matches
+    private int sequence = 1;
+    private int lastPlayerX, lastPlayerY;
+
+    private RenderSnapshot filling;
+
+    public SnapshotPublisher(GameWorld world, int viewWidth, int viewHeight) {
+        this.world = world;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        Player player = world.getPlayer();
+        this.lastPlayerX = player.getX();
+        this.lastPlayerY = player.getY();
+    }
+
+    // Simulation thread, after the given tick
+    public void publish(long tick) {
+        sequence++;
+        EnemyStore enemies = world.getEnemies();
+        if (lastSeen.length < enemies.size()) {
+            int capacity = Math.max(enemies.size(), lastSeen.length + (lastSeen.length >> 1));
+            lastX = Arrays.copyOf(lastX, capacity);
+            lastY = Arrays.copyOf(lastY, capacity);
+            lastSeen = Arrays.copyOf(lastSeen, capacity);
+        }
+
+        Player player = world.getPlayer();
+        int playerX = player.getX();
+        int playerY = player.getY();
+        filling = buffer.getBack();
+        filling.count = 0;
+        filling.tick = tick;
+        filling.totalEnemies = enemies.size();
+        filling.playerX = playerX;
+        filling.playerY = playerY;
+        filling.playerFacing = player.getFacing();
+        filling.previousPlayerX = lastPlayerX;
+        filling.previousPlayerY = lastPlayerY;
+        lastPlayerX = playerX;
+        lastPlayerY = playerY;
+
+        int cameraX = WorldRenderer.cameraX(world, playerX, viewWidth);
+        int cameraY = WorldRenderer.cameraY(world, playerY, viewHeight);
+        world.getSpatialGrid().forEachInRect(cameraX - MARGIN, cameraY - MARGIN,
+                cameraX + viewWidth - 1 + MARGIN, cameraY + viewHeight - 1 + MARGIN, this);
+
+        filling.publishedNanos = System.nanoTime();
+        filling = null;
+        buffer.publish();
+    }
+
+    @Override
+    public void accept(int index) {
+        EnemyStore enemies = world.getEnemies();
+        int x = enemies.getX(index);
+        int y = enemies.getY(index);
+        RenderSnapshot snapshot = filling;
+        int slot = snapshot.count++;
+        snapshot.ensureCapacity(slot + 1);
+        snapshot.x[slot] = x;
+        snapshot.y[slot] = y;
+        // Enemies that just came into view have nothing to interpolate from
+        boolean seenLastTime = lastSeen[index] == sequence - 1;
+        snapshot.previousX[slot] = seenLastTime ? lastX[index] : x;
+        snapshot.previousY[slot] = seenLastTime ? lastY[index] : y;
+        snapshot.typeId[slot] = (byte) enemies.getTypeId(index);
+        snapshot.direction[slot] = (byte) enemies.getDirection(index);
+        snapshot.phase[slot] = (byte) enemies.getPhase(index);
+        lastX[index] = x;
+        lastY[index] = y;
+        lastSeen[index] = sequence;
+    }
+
+    // Render thread: the newest snapshot, or null before the first publish
+    public RenderSnapshot getLatest() {
+        return buffer.getFront();
+    }
+}
@@ -0,0 +1,151 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Structure-of-arrays layout: one primitive array per field, so a pass over
+// all enemies walks a few contiguous arrays instead of chasing one object
+// (header and type pointer included) per enemy.
+public class SoaEnemyStore implements EnemyStore {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] x = new int[INITIAL_CAPACITY];
+    private int[] y = new int[INITIAL_CAPACITY];
+    private byte[] direction = new byte[INITIAL_CAPACITY];
+    private short[] cooldown = new short[INITIAL_CAPACITY];
+    private byte[] typeId = new byte[INITIAL_CAPACITY];
+    private byte[] phase = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+    private final long[] typeCounts = new long[EnemyType.count()];
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int add(int x, int y, int direction, int typeId, int phase) {
+        if (size == this.x.length) {
+            grow(size + 1);
+        }
+        int index = size;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.direction[index] = (byte) direction;
+        this.typeId[index] = (byte) typeId;
+        this.phase[index] = (byte) phase;
+        typeCounts[typeId]++;
+        size++;
+        return index;
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > x.length) {
+            grow(capacity);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        // Grow by 1.5x like ArrayList, but never below what was asked for
+        int capacity = Math.max(minCapacity, x.length + (x.length >> 1));
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        cooldown = Arrays.copyOf(cooldown, capacity);
+        typeId = Arrays.copyOf(typeId, capacity);
+        phase = Arrays.copyOf(phase, capacity);
+    }
+
+    @Override
+    public int getX(int index) {
+        return x[index];
+    }
+
+    @Override
+    public int getY(int index) {
+        return y[index];
+    }
+
+    @Override
+    public void setPosition(int index, int x, int y) {
+        this.x[index] = x;
+        this.y[index] = y;
+    }
+
+    @Override
+    public int getDirection(int index) {
+        return direction[index];
+    }
+
+    @Override
+    public void setDirection(int index, int direction) {
+        this.direction[index] = (byte) direction;
+    }
+
+    @Override
+    public int getCooldown(int index) {
+        return cooldown[index];
+    }
+
+    @Override
+    public void setCooldown(int index, int cooldown) {
+        this.cooldown[index] = (short) cooldown;
+    }
+
+    @Override
+    public int getTypeId(int index) {
+        return typeId[index] & 0xFF;
+    }
+
+    @Override
+    public Sprite getSprite(int index) {
+        return EnemyType.byId(typeId[index] & 0xFF).getSprite();
+    }
+
+    @Override
+    public int getPhase(int index) {
+        return phase[index] & 0xFF;
+    }
+
+    @Override
+    public long[] countTypes() {
+        return typeCounts.clone();
+    }
+
+    @Override
+    public void writeColumns(ByteBuffer buffer) {
+        // Whole arrays at a time through typed views, no per-enemy work
+        buffer.asIntBuffer().put(x, 0, size);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        buffer.asIntBuffer().put(y, 0, size);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        buffer.asShortBuffer().put(cooldown, 0, size);
+        buffer.position(buffer.position() + size * Short.BYTES);
+        buffer.put(direction, 0, size);
+        buffer.put(typeId, 0, size);
+        buffer.put(phase, 0, size);
+    }
+
+    @Override
+    public void readColumns(ByteBuffer buffer, int count) {
+        ensureCapacity(size + count);
+        buffer.asIntBuffer().get(x, size, count);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        buffer.asIntBuffer().get(y, size, count);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        buffer.asShortBuffer().get(cooldown, size, count);
+        buffer.position(buffer.position() + count * Short.BYTES);
+        buffer.get(direction, size, count);
+        buffer.get(typeId, size, count);
+        buffer.get(phase, size, count);
+        for (int i = size; i < size + count; i++) {
+            typeCounts[typeId[i] & 0xFF]++;
+        }
+        size += count;
+    }
+
+    @Override
+    public long getBytesPerEnemy() {
+        // One element in each of x, y, direction, cooldown, typeId and phase
+        return Integer.BYTES * 2 + Byte.BYTES + Short.BYTES + Byte.BYTES + Byte.BYTES;
+    }
+}
@@ -0,0 +1,239 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+// Uniform grid over the 16px tile map. Each cell keeps an intrusive doubly
+// linked list of the enemy indices whose top-left corner lies in that tile,
+// so moving an enemy between cells is O(1) and queries only visit the cells
+// they overlap instead of every enemy in the world.
+//
+// On very large maps one cell per tile would cost more than the enemies
+// themselves, so cells double in size until there are at most MAX_CELLS.
+public class SpatialGrid implements WorldMap.Occupancy {
+    private static final int TILE_SHIFT = 4; // 16px tiles
+    private static final long MAX_CELLS = 1 << 20;
+    private static final int ENTITY_SIZE = EnemyType.MAX_SIZE; // queries assume every box is this big
+    private static final int NONE = -1;
+
+    private final EnemyStore enemies;
+    private final int cellShift;
+    private final int columns;
+    private final int rows;
+
+    // Per cell
+    private final int[] head;
+    private final int[] occupancy;
+
+    // Per enemy index
+    private int[] cellOf = new int[64];
+    private int[] next = new int[64];
+    private int[] prev = new int[64];
+
+    // Width and height of the map in tiles
+    public SpatialGrid(int width, int height, EnemyStore enemies) {
+        int shift = TILE_SHIFT;
+        while ((long) cellsAlong(width, shift) * cellsAlong(height, shift) > MAX_CELLS) {
+            shift++;
+        }
+        this.cellShift = shift;
+        this.columns = cellsAlong(width, shift);
+        this.rows = cellsAlong(height, shift);
+        this.enemies = enemies;
+        this.head = new int[columns * rows];
+        this.occupancy = new int[columns * rows];
+        Arrays.fill(head, NONE);
+    }
+
+    private static int cellsAlong(int tiles, int shift) {
+        long pixels = (long) tiles << TILE_SHIFT;
+        return (int) ((pixels + (1L << shift) - 1) >> shift);
+    }
+
+    // Cells are (1 << cellShift) pixels square; 4 means one cell per tile
+    public int getCellShift() {
+        return cellShift;
+    }
+
+    // Pre-sizes the per-enemy links for indices below capacity
+    public void ensureCapacity(int capacity) {
+        if (capacity > cellOf.length) {
+            cellOf = Arrays.copyOf(cellOf, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+        }
+    }
+
+    // Registers a freshly added enemy at its current position
+    public void insert(int index) {
+        if (index >= cellOf.length) {
+            ensureCapacity(Math.max(index + 1, cellOf.length + (cellOf.length >> 1)));
+        }
+        link(index, cellAt(enemies.getX(index), enemies.getY(index)));
+    }
+
+    // Called when an enemy's top-left corner may have crossed into another cell
+    public void move(int index, int newX, int newY) {
+        int cell = cellAt(newX, newY);
+        if (cell != cellOf[index]) {
+            unlink(index);
+            link(index, cell);
+        }
+    }
+
+    private void link(int index, int cell) {
+        int first = head[cell];
+        cellOf[index] = cell;
+        prev[index] = NONE;
+        next[index] = first;
+        if (first != NONE) {
+            prev[first] = index;
+        }
+        head[cell] = index;
+        occupancy[cell]++;
+    }
+
+    private void unlink(int index) {
+        int cell = cellOf[index];
+        int before = prev[index];
+        int after = next[index];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            head[cell] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+        occupancy[cell]--;
+    }
+
+    private int cellAt(int x, int y) {
+        int column = clamp(x >> cellShift, columns);
+        int row = clamp(y >> cellShift, rows);
+        return row * columns + column;
+    }
+
+    private static int clamp(int value, int limit) {
+        return value < 0 ? 0 : (value >= limit ? limit - 1 : value);
+    }
+
+    // Number of enemies whose top-left corner is in the given cell (a tile,
+    // unless the map is large enough for the grid to be coarser)
+    public int getOccupancy(int cellX, int cellY) {
+        if (cellX < 0 || cellX >= columns || cellY < 0 || cellY >= rows) {
+            return 0;
+        }
+        return occupancy[cellY * columns + cellX];
+    }
+
+    // Whether any enemy's top-left corner is in the square of tiles from
+    // (tileX, tileY); may say yes for an empty square when the grid is
+    // coarser than it
+    @Override
+    public boolean isOccupied(int tileX, int tileY, int tiles) {
+        int column0 = clamp((tileX << TILE_SHIFT) >> cellShift, columns);
+        int row0 = clamp((tileY << TILE_SHIFT) >> cellShift, rows);
+        int column1 = clamp((((tileX + tiles) << TILE_SHIFT) - 1) >> cellShift, columns);
+        int row1 = clamp((((tileY + tiles) << TILE_SHIFT) - 1) >> cellShift, rows);
+        for (int row = row0; row <= row1; row++) {
+            for (int column = column0; column <= column1; column++) {
+                if (occupancy[row * columns + column] != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void forEachInCell(int cellX, int cellY, IntConsumer action) {
+        if (cellX < 0 || cellX >= columns || cellY < 0 || cellY >= rows) {
+            return;
+        }
+        for (int i = head[cellY * columns + cellX]; i != NONE; i = next[i]) {
+            action.accept(i);
+        }
+    }
+
+    // Enemies whose 16x16 box overlaps the pixel rectangle [x0, x1] x [y0, y1]
+    public void forEachInRect(int x0, int y0, int x1, int y1, IntConsumer action) {
+        // A box starting up to 15px before the rectangle still overlaps it
+        int firstColumn = clamp((x0 - ENTITY_SIZE + 1) >> cellShift, columns);
+        int lastColumn = clamp(x1 >> cellShift, columns);
+        int firstRow = clamp((y0 - ENTITY_SIZE + 1) >> cellShift, rows);
+        int lastRow = clamp(y1 >> cellShift, rows);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                for (int i = head[row * columns + column]; i != NONE; i = next[i]) {
+                    int x = enemies.getX(i);
+                    int y = enemies.getY(i);
+                    if (x + ENTITY_SIZE > x0 && x <= x1 && y + ENTITY_SIZE > y0 && y <= y1) {
+                        action.accept(i);
+                    }
+                }
+            }
+        }
+    }
+
+    // Enemies in the cells a query over the rectangle visits, counted up
+    // to limit from the cell totals alone: an upper bound on what the query
+    // would match, without touching a single enemy
+    public int countNear(int x0, int y0, int x1, int y1, int limit) {
+        int firstColumn = clamp((x0 - ENTITY_SIZE + 1) >> cellShift, columns);
+        int lastColumn = clamp(x1 >> cellShift, columns);
+        int firstRow = clamp((y0 - ENTITY_SIZE + 1) >> cellShift, rows);
+        int lastRow = clamp(y1 >> cellShift, rows);
+
+        int count = 0;
+        for (int row = firstRow; row <= lastRow && count < limit; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                count += occupancy[row * columns + column];
+            }
+        }
+        return count;
+    }
+
+    // Whether test accepts any enemy whose box overlaps the rectangle;
+    // stops at the first one
+    public boolean anyInRect(int x0, int y0, int x1, int y1, IntPredicate test) {
+        int firstColumn = clamp((x0 - ENTITY_SIZE + 1) >> cellShift, columns);
+        int lastColumn = clamp(x1 >> cellShift, columns);
+        int firstRow = clamp((y0 - ENTITY_SIZE + 1) >> cellShift, rows);
+        int lastRow = clamp(y1 >> cellShift, rows);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                for (int i = head[row * columns + column]; i != NONE; i = next[i]) {
+                    int x = enemies.getX(i);
+                    int y = enemies.getY(i);
+                    if (x + ENTITY_SIZE > x0 && x <= x1 && y + ENTITY_SIZE > y0 && y <= y1 && test.test(i)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Enemies whose center lies within radius pixels of (centerX, centerY)
+    public void forEachInRadius(int centerX, int centerY, int radius, IntConsumer action) {
+        int half = ENTITY_SIZE / 2;
+        int firstColumn = clamp((centerX - radius - half) >> cellShift, columns);
+        int lastColumn = clamp((centerX + radius - half) >> cellShift, columns);
+        int firstRow = clamp((centerY - radius - half) >> cellShift, rows);
+        int lastRow = clamp((centerY + radius - half) >> cellShift, rows);
+        long radiusSquared = (long) radius * radius;
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                for (int i = head[row * columns + column]; i != NONE; i = next[i]) {
+                    long dx = enemies.getX(i) + half - centerX;
+                    long dy = enemies.getY(i) + half - centerY;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        action.accept(i);
+                    }
+                }
+            }
+        }
+    }
+}
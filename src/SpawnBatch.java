@@ -0,0 +1,32 @@
+// A group of enemies waiting to be added to the world. Batches are built on
+// whatever thread asked for the spawn and handed to the simulation thread,
+// which appends them to the EnemyStore at the start of its next tick.
+public class SpawnBatch {
+    final int[] x;
+    final int[] y;
+    final byte[] direction;
+    final byte[] typeId;
+    final byte[] phase;
+    private int count = 0;
+
+    public SpawnBatch(int capacity) {
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.direction = new byte[capacity];
+        this.typeId = new byte[capacity];
+        this.phase = new byte[capacity];
+    }
+
+    public void add(int x, int y, int direction, int typeId, int phase) {
+        this.x[count] = x;
+        this.y[count] = y;
+        this.direction[count] = (byte) direction;
+        this.typeId[count] = (byte) typeId;
+        this.phase[count] = (byte) phase;
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+}
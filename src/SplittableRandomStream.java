@@ -0,0 +1,25 @@
+import java.util.SplittableRandom;
+
+// RandomStream backed by java.util.SplittableRandom
+public final class SplittableRandomStream implements RandomStream {
+    private SplittableRandom random;
+
+    public SplittableRandomStream(long seed) {
+        reseed(seed);
+    }
+
+    @Override
+    public void reseed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+}
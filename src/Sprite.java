@@ -1,35 +1,44 @@
-import java.awt.Image;
-import javax.imageio.ImageIO;
-import java.io.File;
-import java.io.IOException;
+import java.awt.Graphics;
+import java.awt.Rectangle;
 
+// A named region of a TextureAtlas
 public class Sprite {
-    private final Image image;
+    private final TextureAtlas atlas;
     private final String name;
+    private final int srcX, srcY, width, height;
 
-    public Sprite(String path, String name) {
+    public Sprite(TextureAtlas atlas, Rectangle region, String name) {
+        this.atlas = atlas;
         this.name = name;
-        Image tempImage = null;
-        try {
-            tempImage = ImageIO.read(new File("src/" + path));
-        } catch (IOException e) {
-            System.out.println("Failed to load sprite: " + path);
-            e.printStackTrace();
-        }
-        this.image = tempImage;
+        this.srcX = region.x;
+        this.srcY = region.y;
+        this.width = region.width;
+        this.height = region.height;
     }
 
-    // Add this constructor to the Sprite class
-    public Sprite(Image image, String name) {
-        this.name = name;
-        this.image = image;
+    public void draw(Graphics g, int x, int y) {
+        g.drawImage(atlas.getImage(), x, y, x + width, y + height,
+                srcX, srcY, srcX + width, srcY + height, null);
     }
 
-    public Image getImage() {
-        return image;
+    public TextureAtlas getAtlas() {
+        return atlas;
     }
 
     public String getName() {
         return name;
     }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Bytes of atlas pixel data this sprite occupies
+    public long getImageBytes() {
+        return (long) width * height * atlas.getBytesPerPixel();
+    }
 }
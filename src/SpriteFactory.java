@@ -1,29 +1,306 @@
-import java.util.HashMap;
+import javax.imageio.ImageIO;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class SpriteFactory {
-    private static final Map<String, Sprite> sprites = new HashMap<>();
+    private static final Logger LOGGER = Logger.getLogger(SpriteFactory.class.getName());
+    private static final Map<String, Sprite> sprites = new ConcurrentHashMap<>();
+    private static final Map<String, Animation> animations = new ConcurrentHashMap<>();
+    // Sprites no larger than this are single frames, see getAnimation()
+    private static final int TILE_SIZE = 16;
+    private static final TextureAtlas atlas = new TextureAtlas();
+    // Every image under this directory is decoded by preload()
+    private static final Path SPRITE_DIR = Paths.get("src/sprites");
+    // Decoded images by path, preloaded or read on first use. Kept so a
+    // path shared by several names is decoded once.
+    private static final Map<String, CompletableFuture<BufferedImage>> images = new ConcurrentHashMap<>();
+    private static CompletableFuture<Void> preload; // guarded by the class
 
+    // Starts decoding every PNG under src/sprites in parallel and returns
+    // a future that completes once all of them are ready; later calls
+    // return the same future. Call it as early as possible (Game.main does,
+    // before the window exists) so the decodes overlap the rest of startup;
+    // GameWorld waits for it before creating tiles and entities. Startup
+    // then takes as long as the slowest image rather than the sum of all.
+    //
+    // Preloading only fills the image cache. Sprites are still packed into
+    // the atlas on first use, in the order they are asked for, so the atlas
+    // layout does not depend on which decode finishes first. A sprite asked
+    // for before its image is ready waits for that image alone.
+    public static synchronized CompletableFuture<Void> preload() {
+        if (preload == null) {
+            preload = startPreload();
+        }
+        return preload;
+    }
+
+    private static CompletableFuture<Void> startPreload() {
+        List<String> paths;
+        try {
+            paths = manifest();
+        } catch (UncheckedIOException e) {
+            LOGGER.log(Level.WARNING, "Failed to list sprites in " + SPRITE_DIR + ", loading them on first use", e);
+            return CompletableFuture.completedFuture(null);
+        }
+        GameEvents.SpritePreload event = new GameEvents.SpritePreload();
+        event.begin();
+
+        // Decoding is mostly inflating PNG data, so one thread per core.
+        // Not the common pool: on a single core it has no threads of its own.
+        AtomicInteger count = new AtomicInteger();
+        int threads = Math.max(1, Math.min(paths.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "sprite-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[paths.size()];
+        for (int i = 0; i < loads.length; i++) {
+            loads[i] = images.computeIfAbsent(paths.get(i),
+                    path -> CompletableFuture.supplyAsync(() -> decode(path), executor));
+        }
+        executor.shutdown(); // queued decodes still run; the threads then exit
+
+        return CompletableFuture.allOf(loads).thenRun(() -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.images = loads.length;
+                event.threads = threads;
+                event.commit();
+            }
+            LOGGER.fine("Preloaded " + loads.length + " sprite images on " + threads + " threads");
+        });
+    }
+
+    // Paths relative to src/, as getSprite() and getAnimation() take them,
+    // in a stable order
+    private static List<String> manifest() {
+        if (!Files.isDirectory(SPRITE_DIR)) {
+            return Collections.emptyList();
+        }
+        Path root = SPRITE_DIR.getParent();
+        try (Stream<Path> files = Files.walk(SPRITE_DIR)) {
+            return files.filter(file -> Files.isRegularFile(file) && file.toString().endsWith(".png"))
+                    .map(file -> root.relativize(file).toString().replace(File.separatorChar, '/'))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Waits for preload(), starting it if nobody has
+    public static void awaitPreload() {
+        preload().join();
+    }
+
+    // Safe from any thread. A hit is a single lock-free read; on a miss
+    // computeIfAbsent loads the sprite once even if several threads ask for
+    // it at the same time. Hot paths should keep the returned Sprite instead
+    // of calling this per object (see TileType and EnemyType).
     public static Sprite getSprite(String path, String name) {
-        if (!sprites.containsKey(name)) {
-            sprites.put(name, createSprite(path, name));
-            System.out.println("Created new sprite: " + name);
-        } else {
-            System.out.println("Reusing sprite: " + name);
+        Sprite sprite = sprites.get(name);
+        if (sprite != null) {
+            return sprite;
         }
-        return sprites.get(name);
+        return sprites.computeIfAbsent(name, key -> createSprite(path, key));
     }
 
+    // Loads the image and packs it into the shared atlas. A sprite that fails
+    // to load becomes an empty region so drawing it is a no-op.
     private static Sprite createSprite(String path, String name) {
+        GameEvents.SpriteLoad event = new GameEvents.SpriteLoad();
+        event.begin();
+        BufferedImage image = readImage(path);
+        Rectangle region = image != null ? atlas.add(image) : new Rectangle();
+        LOGGER.fine("Created new sprite: " + name);
+        Sprite sprite = new Sprite(atlas, region, name);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.name = name;
+            event.bytes = sprite.getImageBytes();
+            event.commit();
+        }
+        return sprite;
+    }
+
+    // The preloaded image if there is one, waiting for it if need be;
+    // otherwise decoded here. Null if the image cannot be read.
+    private static BufferedImage readImage(String path) {
+        CompletableFuture<BufferedImage> image = images.get(path);
+        if (image == null) {
+            image = images.computeIfAbsent(path, key -> CompletableFuture.completedFuture(decode(key)));
+        }
+        return image.join();
+    }
+
+    // convert(), recorded per image as a game.SpriteDecode event on
+    // whichever thread does it
+    private static BufferedImage decode(String path) {
+        GameEvents.SpriteDecode event = new GameEvents.SpriteDecode();
+        event.begin();
+        BufferedImage image = convert(path);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.bytes = image == null ? 0
+                    : (long) image.getWidth() * image.getHeight() * image.getColorModel().getPixelSize() / 8;
+            event.commit();
+        }
+        return image;
+    }
+
+    // Null, after logging why, if the image cannot be read. The result is
+    // converted to the screen's pixel format, so packing it into the atlas
+    // is a straight copy.
+    private static BufferedImage convert(String path) {
+        BufferedImage image;
         try {
-            return new Sprite(path, name);
-        } catch (Exception e) {
-            System.out.println("Failed to load sprite: " + path);
-            throw e;
+            image = ImageIO.read(new File("src/" + path));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to load sprite: " + path, e);
+            return null;
+        }
+        if (image == null) {
+            LOGGER.warning("Failed to load sprite: " + path + " (unsupported format)");
+            return null;
+        }
+        BufferedImage compatible = CompatibleImages.create(image.getWidth(), image.getHeight(), Transparency.TRANSLUCENT);
+        Graphics2D g = compatible.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return compatible;
+    }
+
+    // Animation from the sprite sheet at path: frames columns by facings
+    // rows (one row per direction, up first, or a single row for all of
+    // them), cut once into atlas regions that every user shares. Safe from
+    // any thread, and loaded once per name like getSprite().
+    //
+    // An image no bigger than one tile is a single frame rather than a
+    // sheet. The cycle is then derived from it: odd frames are raised by a
+    // pixel, and the left-facing row is mirrored.
+    public static Animation getAnimation(String path, String name, int frames, int facings, int ticksPerFrame) {
+        Animation animation = animations.get(name);
+        if (animation != null) {
+            return animation;
+        }
+        return animations.computeIfAbsent(name, key -> createAnimation(path, key, frames, facings, ticksPerFrame));
+    }
+
+    private static Animation createAnimation(String path, String name, int frames, int facings, int ticksPerFrame) {
+        GameEvents.SpriteLoad event = new GameEvents.SpriteLoad();
+        event.begin();
+        BufferedImage sheet = readImage(path);
+        Sprite[] table = new Sprite[frames * facings];
+        long bytes = 0;
+
+        if (sheet == null) {
+            Sprite empty = new Sprite(atlas, new Rectangle(), name);
+            register(empty);
+            Arrays.fill(table, empty);
+        } else if (sheet.getWidth() <= TILE_SIZE && sheet.getHeight() <= TILE_SIZE) {
+            // Only two distinct images per frame: as drawn, and mirrored
+            Sprite[] derived = new Sprite[2 * frames];
+            for (int facing = 0; facing < facings; facing++) {
+                int mirrored = facings == 4 && facing == 3 ? 1 : 0;
+                for (int frame = 0; frame < frames; frame++) {
+                    int key = mirrored * frames + frame;
+                    if (derived[key] == null) {
+                        Rectangle region = atlas.add(deriveFrame(sheet, mirrored == 1, frame % 2));
+                        derived[key] = register(new Sprite(atlas, region, frameName(name, mirrored * 3, frame)));
+                        bytes += derived[key].getImageBytes();
+                    }
+                    table[facing * frames + frame] = derived[key];
+                }
+            }
+        } else {
+            if (sheet.getWidth() % frames != 0 || sheet.getHeight() % facings != 0) {
+                LOGGER.warning("Sprite sheet " + path + " is not " + frames + " by " + facings + " equal frames");
+            }
+            int width = sheet.getWidth() / frames;
+            int height = sheet.getHeight() / facings;
+            Rectangle whole = atlas.add(sheet);
+            for (int facing = 0; facing < facings; facing++) {
+                for (int frame = 0; frame < frames; frame++) {
+                    Rectangle region = new Rectangle(whole.x + frame * width, whole.y + facing * height, width, height);
+                    table[facing * frames + frame] = register(new Sprite(atlas, region, frameName(name, facing, frame)));
+                }
+            }
+            bytes = (long) whole.width * whole.height * atlas.getBytesPerPixel();
+        }
+        LOGGER.fine("Created new animation: " + name);
+        Animation animation = new Animation(table, frames, facings, ticksPerFrame);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.name = name;
+            event.bytes = bytes;
+            event.commit();
         }
+        return animation;
+    }
+
+    private static String frameName(String name, int facing, int frame) {
+        return name + "/" + facing + "/" + frame;
+    }
+
+    // Frames are listed with the other sprites, for MemoryUsageView
+    private static Sprite register(Sprite sprite) {
+        sprites.put(sprite.getName(), sprite);
+        return sprite;
+    }
+
+    private static BufferedImage deriveFrame(BufferedImage source, boolean mirrored, int raise) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = frame.createGraphics();
+        if (mirrored) {
+            g.drawImage(source, width, -raise, -width, height, null);
+        } else {
+            g.drawImage(source, 0, -raise, width, height, null);
+        }
+        g.dispose();
+        return frame;
+    }
+
+    public static TextureAtlas getAtlas() {
+        return atlas;
     }
 
     public static int getSpriteCount() {
         return sprites.size();
     }
-}
\ No newline at end of file
+
+    public static Collection<Sprite> getSprites() {
+        return Collections.unmodifiableCollection(sprites.values());
+    }
+}
@@ -0,0 +1,79 @@
+import metrics.MemoryMetrics;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+// One shared image holding every sprite, packed in rows ("shelves") from
+// the top-left. Drawing from a single source image avoids switching
+// textures between sprites on the accelerated Java2D pipelines.
+public class TextureAtlas {
+    private static final int INITIAL_SIZE = 128;
+
+    private volatile BufferedImage image = CompatibleImages.create(INITIAL_SIZE, INITIAL_SIZE, Transparency.TRANSLUCENT);
+    private int shelfX = 0;
+    private int shelfY = 0;
+    private int shelfHeight = 0;
+
+    // Copies the image into the atlas and returns where it was placed
+    public synchronized Rectangle add(Image source) {
+        int width = source.getWidth(null);
+        int height = source.getHeight(null);
+
+        // Start a new shelf when this one is full
+        if (shelfX + width > image.getWidth()) {
+            shelfX = 0;
+            shelfY += shelfHeight;
+            shelfHeight = 0;
+        }
+        if (width > image.getWidth() || shelfY + height > image.getHeight()) {
+            grow(Math.max(width, image.getWidth()), shelfY + height);
+        }
+
+        Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(source, shelfX, shelfY, null);
+        g.dispose();
+
+        Rectangle region = new Rectangle(shelfX, shelfY, width, height);
+        shelfX += width;
+        shelfHeight = Math.max(shelfHeight, height);
+        return region;
+    }
+
+    // Sprites keep a reference to the atlas, not to the image, so replacing
+    // the image with a larger copy does not invalidate them
+    private void grow(int minWidth, int minHeight) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        while (width < minWidth) {
+            width *= 2;
+        }
+        while (height < minHeight) {
+            height *= 2;
+        }
+
+        BufferedImage larger = CompatibleImages.create(width, height, Transparency.TRANSLUCENT);
+        Graphics2D g = larger.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        image = larger;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public long getImageBytes() {
+        return MemoryMetrics.imageBytes(image);
+    }
+
+    public int getBytesPerPixel() {
+        BufferedImage current = image;
+        return (int) (MemoryMetrics.imageBytes(current) / ((long) current.getWidth() * current.getHeight()));
+    }
+}
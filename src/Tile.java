@@ -1,12 +1,18 @@
+// A map cell seen as a GameObject. Tiles are not stored anywhere; TileMap
+// creates them on request from the cell's TileType.
 public class Tile extends GameObject {
-    private boolean walkable;
+    private final TileType type;
 
-    public Tile(int x, int y, String type, boolean walkable) {
-        super(x, y, SpriteFactory.getSprite("sprites/tiles/" + type + ".png", "tile_" + type));
-        this.walkable = walkable;
+    public Tile(int x, int y, TileType type) {
+        super(x, y, type.getSprite());
+        this.type = type;
+    }
+
+    public TileType getType() {
+        return type;
     }
 
     public boolean isWalkable() {
-        return walkable;
+        return type.isWalkable();
     }
 }
@@ -0,0 +1,114 @@
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
+
+// Tile grid stored as one byte per cell (a TileType id) instead of a Tile
+// object per cell. Position is implied by the index and everything else
+// comes from the TileType palette, so a 4096x4096 map costs 16 MB.
+// The whole map is always loaded.
+public class TileMap implements WorldMap {
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+    // Kept in step with cells by setType()
+    private final WalkabilityMap walkability;
+
+    public TileMap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[Math.multiplyExact(width, height)];
+        this.walkability = new WalkabilityMap(width, height);
+        // New cells hold id 0; keep the bitmap in agreement with that
+        if (TileType.byId(0).isWalkable()) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    walkability.set(x, y, true);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTypeId(int tileX, int tileY) {
+        return cells[tileY * width + tileX];
+    }
+
+    @Override
+    public TileType getType(int tileX, int tileY) {
+        return TileType.byId(cells[tileY * width + tileX]);
+    }
+
+    public void setType(int tileX, int tileY, TileType type) {
+        cells[tileY * width + tileX] = type.getId();
+        walkability.set(tileX, tileY, type.isWalkable());
+    }
+
+    // Bulk copies of the id grid, row by row, for WorldSnapshot
+    public void writeCells(ByteBuffer buffer) {
+        buffer.put(cells);
+    }
+
+    public void readCells(ByteBuffer buffer) {
+        buffer.get(cells);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                walkability.set(x, y, TileType.byId(cells[y * width + x]).isWalkable());
+            }
+        }
+    }
+
+    // Tile-object view of one cell, for code that wants a GameObject
+    public Tile getTile(int tileX, int tileY) {
+        return new Tile(tileX * 16, tileY * 16, getType(tileX, tileY));
+    }
+
+    @Override
+    public boolean isWalkable(int x, int y) {
+        return walkability.isWalkable(x, y);
+    }
+
+    // See WalkabilityMap.canOccupy for the limits on size and position
+    @Override
+    public boolean canOccupy(int x, int y, int size) {
+        return walkability.canOccupy(x, y, size);
+    }
+
+    @Override
+    public boolean isActive(int x, int y) {
+        return true;
+    }
+
+    @Override
+    public boolean stream(int x, int y, Occupancy occupancy) {
+        // Everything is resident
+        return false;
+    }
+
+    @Override
+    public Rectangle getSpawnArea() {
+        // Inside the outer ring of tiles
+        return new Rectangle(1, 1, width - 2, height - 2);
+    }
+
+    @Override
+    public long[] countTypes() {
+        long[] counts = new long[TileType.count()];
+        for (byte cell : cells) {
+            counts[cell]++;
+        }
+        return counts;
+    }
+
+    @Override
+    public long getBytes() {
+        return cells.length;
+    }
+}
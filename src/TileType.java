@@ -0,0 +1,46 @@
+// Intrinsic state shared by every tile of one kind. A map cell stores only
+// the one-byte id, which indexes the palette below.
+public final class TileType {
+    public static final TileType WALL = new TileType(0, "wall", false);
+    public static final TileType WATER = new TileType(1, "water", false);
+    public static final TileType GRASS = new TileType(2, "grass", true);
+    public static final TileType DIRT = new TileType(3, "dirt", true);
+
+    private static final TileType[] PALETTE = {WALL, WATER, GRASS, DIRT};
+
+    private final byte id;
+    private final String name;
+    private final Sprite sprite;
+    private final boolean walkable;
+
+    private TileType(int id, String name, boolean walkable) {
+        this.id = (byte) id;
+        this.name = name;
+        this.walkable = walkable;
+        this.sprite = SpriteFactory.getSprite("sprites/tiles/" + name + ".png", "tile_" + name);
+    }
+
+    public static TileType byId(int id) {
+        return PALETTE[id];
+    }
+
+    public static int count() {
+        return PALETTE.length;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Sprite getSprite() {
+        return sprite;
+    }
+
+    public boolean isWalkable() {
+        return walkable;
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Hands the latest of a stream of values from one producer thread to one
+// consumer thread without locks or allocation. There are three slots: the
+// producer fills its back slot and swaps it with the middle one, and the
+// consumer swaps its front slot with the middle one whenever a new value is
+// there. Neither side ever waits, the consumer always gets the newest value
+// published, and a slot is never written while the consumer holds it.
+public class TripleBuffer<T> {
+    // Middle slot index in the low bits, plus FRESH once the producer has
+    // published into it and the consumer has not taken it yet
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final Object[] slots = new Object[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0; // producer only
+    private int front = 2; // consumer only
+    private boolean received = false; // consumer only
+
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = factory.get();
+        }
+    }
+
+    // Slot for the producer to fill next
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) slots[back];
+    }
+
+    // Makes the filled back slot the latest value
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    // Latest published value, or the one returned last time if nothing new
+    // was published since; null before the first publish
+    @SuppressWarnings("unchecked")
+    public T getFront() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+            received = true;
+        }
+        return received ? (T) slots[front] : null;
+    }
+}
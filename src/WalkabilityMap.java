@@ -0,0 +1,55 @@
+// One bit per tile, set when the tile can be walked on, with a one-tile
+// border of unwalkable padding around the map. The padding means any box
+// that starts at most one tile outside the map can be tested without
+// bounds checks, and 16px tiles turn pixel-to-tile divisions into shifts.
+public class WalkabilityMap {
+    private static final int TILE_SHIFT = 4; // 16px tiles
+
+    private final long[] bits;
+    private final int stride;
+    private final int paddedHeight;
+
+    // Starts with every tile unwalkable
+    public WalkabilityMap(int width, int height) {
+        this.stride = width + 2;
+        this.paddedHeight = height + 2;
+        this.bits = new long[(int) (((long) stride * paddedHeight + 63) >>> 6)];
+    }
+
+    public void set(int tileX, int tileY, boolean walkable) {
+        int bit = (tileY + 1) * stride + tileX + 1;
+        if (walkable) {
+            bits[bit >>> 6] |= 1L << bit;
+        } else {
+            bits[bit >>> 6] &= ~(1L << bit);
+        }
+    }
+
+    // Single point, any coordinates
+    public boolean isWalkable(int x, int y) {
+        int column = (x >> TILE_SHIFT) + 1;
+        int row = (y >> TILE_SHIFT) + 1;
+        // One unsigned compare per axis covers both "< 0" and ">= size"
+        if (Integer.compareUnsigned(column, stride) >= 0 || Integer.compareUnsigned(row, paddedHeight) >= 0) {
+            return false;
+        }
+        return bit(row * stride + column) != 0;
+    }
+
+    // Whether a size x size box at (x, y) lies only on walkable tiles. Tests
+    // the four corners with no branches; size must be at most 16 and the box
+    // may reach at most one tile past the map edge, which holds for anything
+    // moving a few pixels from a valid position.
+    public boolean canOccupy(int x, int y, int size) {
+        int left = (x >> TILE_SHIFT) + 1;
+        int right = ((x + size - 1) >> TILE_SHIFT) + 1;
+        int top = ((y >> TILE_SHIFT) + 1) * stride;
+        int bottom = (((y + size - 1) >> TILE_SHIFT) + 1) * stride;
+        return (bit(top + left) & bit(top + right) & bit(bottom + left) & bit(bottom + right)) != 0;
+    }
+
+    private long bit(int index) {
+        // Shift distances on a long only use the low six bits of index
+        return (bits[index >>> 6] >>> index) & 1L;
+    }
+}
@@ -0,0 +1,44 @@
+import java.awt.Rectangle;
+
+// The tile layer of a GameWorld. Tile coordinates index cells; x/y
+// arguments named in pixels are world pixel positions (16px per tile).
+public interface WorldMap {
+    // Size in tiles
+    int getWidth();
+
+    int getHeight();
+
+    // Type of a tile, or null if that part of the map is not loaded
+    TileType getType(int tileX, int tileY);
+
+    boolean isWalkable(int x, int y);
+
+    // Whether a size x size box at pixel (x, y) touches only walkable tiles
+    boolean canOccupy(int x, int y, int size);
+
+    // Whether enemies at pixel (x, y) are simulated; false where the map is
+    // not loaded, which freezes them until it is
+    boolean isActive(int x, int y);
+
+    // Lets the map load or drop data around a point of interest (the
+    // player, in pixels), keeping parts that still hold enemies where it
+    // can. Simulation thread only, between ticks. Returns true when the
+    // loaded area, and so the spawn area, has moved.
+    boolean stream(int x, int y, Occupancy occupancy);
+
+    // Where enemies are, for stream()
+    interface Occupancy {
+        // Whether any enemy stands in the square of tiles from (tileX, tileY)
+        boolean isOccupied(int tileX, int tileY, int tiles);
+    }
+
+    // Tiles where new enemies may be placed right now. Simulation thread
+    // only, like stream(); GameWorld hands the result to other threads.
+    Rectangle getSpawnArea();
+
+    // Number of loaded cells of each type, indexed by type id
+    long[] countTypes();
+
+    // Bytes of tile data currently held in memory
+    long getBytes();
+}
@@ -0,0 +1,143 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Draws a GameWorld into a fixed-size viewport that follows the player
+// (on maps no larger than the viewport it simply stays at the origin).
+// Tiles never change, so the tile layer under the viewport is baked into a
+// single image and blitted per frame, and only re-baked when the camera
+// moves onto another tile.
+//
+// Entities come from a RenderSnapshot rather than the live world, so this
+// can run on its own thread while the simulation ticks. The snapshot
+// already holds only the enemies around the viewport (picked through the
+// spatial grid), and frames between two ticks are interpolated. Walk cycle
+// frames come from each type's shared Animation; whoever moved since the
+// previous tick is drawn walking.
+public class WorldRenderer {
+    private final GameWorld world;
+    private final int viewWidth;
+    private final int viewHeight;
+    private BufferedImage tileLayer;
+    private int layerTileX = -1;
+    private int layerTileY = -1;
+    private int drawnEnemies;
+
+    // For render(Graphics): snapshots taken on the calling thread
+    private SnapshotPublisher directPublisher;
+    private long directTick; // walk cycle clock for render(Graphics)
+
+    public WorldRenderer(GameWorld world, int viewWidth, int viewHeight) {
+        this.world = world;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+    }
+
+    // Top-left corner of the viewport for a player at (playerX, playerY)
+    public static int cameraX(GameWorld world, int playerX, int viewWidth) {
+        return clampCamera(playerX + 8 - viewWidth / 2, world.getWidth() * 16 - viewWidth);
+    }
+
+    public static int cameraY(GameWorld world, int playerY, int viewHeight) {
+        return clampCamera(playerY + 8 - viewHeight / 2, world.getHeight() * 16 - viewHeight);
+    }
+
+    private static int clampCamera(int position, int max) {
+        return Math.max(0, Math.min(position, max));
+    }
+
+    // Snapshots and draws the world as it is now; for callers that own the
+    // world, such as benchmarks and tools. Entities are drawn at their latest
+    // position, and each call counts as one tick of the walk cycles, so
+    // enemies that moved since the last call animate.
+    public void render(Graphics g) {
+        if (directPublisher == null) {
+            directPublisher = new SnapshotPublisher(world, viewWidth, viewHeight);
+        }
+        directPublisher.publish(directTick++);
+        render(g, directPublisher.getLatest(), 1);
+    }
+
+    // Draws the snapshot with entities alpha of the way from their previous
+    // position (0) to their latest one (1)
+    public void render(Graphics g, RenderSnapshot snapshot, double alpha) {
+        GameEvents.Frame event = new GameEvents.Frame();
+        event.begin();
+
+        int playerX = interpolate(snapshot.previousPlayerX, snapshot.playerX, alpha);
+        int playerY = interpolate(snapshot.previousPlayerY, snapshot.playerY, alpha);
+        int cameraX = cameraX(world, playerX, viewWidth);
+        int cameraY = cameraY(world, playerY, viewHeight);
+        if (tileLayer == null || cameraX >> 4 != layerTileX || cameraY >> 4 != layerTileY) {
+            bakeTileLayer(cameraX >> 4, cameraY >> 4);
+        }
+
+        // Clear screen, then the whole tile layer in one call
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, viewWidth, viewHeight);
+        g.drawImage(tileLayer, layerTileX * 16 - cameraX, layerTileY * 16 - cameraY, null);
+
+        // Draw entities and player, in world coordinates
+        g.translate(-cameraX, -cameraY);
+        long tick = snapshot.tick;
+        for (int i = 0; i < snapshot.count; i++) {
+            int previousX = snapshot.previousX[i];
+            int previousY = snapshot.previousY[i];
+            int x = snapshot.x[i];
+            int y = snapshot.y[i];
+            boolean moving = x != previousX || y != previousY;
+            EnemyType.byId(snapshot.typeId[i] & 0xFF).getAnimation()
+                    .getFrame(tick, snapshot.phase[i] & 0xFF, snapshot.direction[i], moving)
+                    .draw(g, interpolate(previousX, x, alpha), interpolate(previousY, y, alpha));
+        }
+        drawnEnemies = snapshot.count;
+        boolean playerMoving = snapshot.playerX != snapshot.previousPlayerX
+                || snapshot.playerY != snapshot.previousPlayerY;
+        Player.getAnimation().getFrame(tick, 0, snapshot.playerFacing, playerMoving).draw(g, playerX, playerY);
+        g.translate(cameraX, cameraY);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.drawn = drawnEnemies;
+            event.culled = snapshot.totalEnemies - drawnEnemies;
+            event.commit();
+        }
+    }
+
+    private static int interpolate(int from, int to, double alpha) {
+        return from + (int) Math.round((to - from) * alpha);
+    }
+
+    // Enemies in the last snapshot drawn, including the margin around the
+    // viewport
+    public int getDrawnEnemies() {
+        return drawnEnemies;
+    }
+
+    // Covers the viewport plus one tile, since the camera moves by pixels
+    private void bakeTileLayer(int firstTileX, int firstTileY) {
+        int columns = viewWidth / 16 + 2;
+        int rows = viewHeight / 16 + 2;
+        if (tileLayer == null) {
+            tileLayer = CompatibleImages.create(columns * 16, rows * 16, Transparency.OPAQUE);
+        }
+
+        Graphics g = tileLayer.getGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, tileLayer.getWidth(), tileLayer.getHeight());
+        WorldMap map = world.getMap();
+        int lastTileX = Math.min(map.getWidth(), firstTileX + columns);
+        int lastTileY = Math.min(map.getHeight(), firstTileY + rows);
+        for (int y = firstTileY; y < lastTileY; y++) {
+            for (int x = firstTileX; x < lastTileX; x++) {
+                TileType type = map.getType(x, y);
+                // Parts of the map that are not loaded stay black
+                if (type != null) {
+                    type.getSprite().draw(g, (x - firstTileX) * 16, (y - firstTileY) * 16);
+                }
+            }
+        }
+        g.dispose();
+        layerTileX = firstTileX;
+        layerTileY = firstTileY;
+    }
+}
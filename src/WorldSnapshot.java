@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Binary save file for a GameWorld, written and read through a memory-mapped
+// FileChannel so even a million enemies take a few bulk copies instead of
+// an object per enemy. Layout, little-endian:
+//
+//   header     magic, version, flags, width, height, seed, random mode,
+//              tick, player x/y, enemy count, spawn stream state, then
+//              for chunked maps
+//              chunk radius, chunk budget and map seed
+//   enemies    EnemyStore.writeColumns: x[], y[], cooldown[], direction[],
+//              typeId[], phase[]
+//   tiles      width * height TileType ids, row by row (flat maps only;
+//              a chunked map is regenerated from its seed)
+//
+// Enemy random decisions depend only on (seed, mode, tick), so saving those
+// and the spawn stream's one long of state resumes the same run, spawns
+// included.
+public class WorldSnapshot {
+    private static final int MAGIC = 0x5A534E50; // "ZSNP" as an int
+    private static final int VERSION = 3;
+    private static final int FLAG_CHUNKED = 1;
+    // Header fields plus room to grow
+    private static final int HEADER_BYTES = 128;
+    // One entry in each enemy column
+    private static final int ENEMY_BYTES = 2 * Integer.BYTES + Short.BYTES + 3 * Byte.BYTES;
+
+    private final GameWorld world;
+    private final long tick;
+
+    private WorldSnapshot(GameWorld world, long tick) {
+        this.world = world;
+        this.tick = tick;
+    }
+
+    public GameWorld getWorld() {
+        return world;
+    }
+
+    // Hand this to EnemySimulation.setTick to continue the saved run
+    public long getTick() {
+        return tick;
+    }
+
+    // Must not run while the simulation is stepping the world
+    public static void save(GameWorld world, long tick, Path path) throws IOException {
+        WorldMap map = world.getMap();
+        boolean chunked = map instanceof ChunkedWorldMap;
+        if (!chunked && !(map instanceof TileMap)) {
+            throw new IOException("Cannot save a " + map.getClass().getSimpleName());
+        }
+        EnemyStore enemies = world.getEnemies();
+        int count = enemies.size();
+        long tileBytes = chunked ? 0 : (long) map.getWidth() * map.getHeight();
+        long size = HEADER_BYTES + (long) count * ENEMY_BYTES + tileBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + size + " bytes is too large to map");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            GameRandom random = world.getRandom();
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(chunked ? FLAG_CHUNKED : 0);
+            buffer.putInt(map.getWidth());
+            buffer.putInt(map.getHeight());
+            buffer.putLong(random.getSeed());
+            buffer.putInt(random.getMode().ordinal());
+            buffer.putLong(tick);
+            buffer.putInt(world.getPlayer().getX());
+            buffer.putInt(world.getPlayer().getY());
+            buffer.putInt(count);
+            buffer.putLong(world.getSpawnState());
+            if (chunked) {
+                ChunkedWorldMap chunkedMap = (ChunkedWorldMap) map;
+                buffer.putInt(chunkedMap.getActiveRadius());
+                buffer.putLong(chunkedMap.getBudgetBytes());
+                buffer.putLong(chunkedMap.getSeed());
+            }
+            buffer.position(HEADER_BYTES);
+
+            enemies.writeColumns(buffer);
+            if (!chunked) {
+                ((TileMap) map).writeCells(buffer);
+            }
+        }
+    }
+
+    // Rebuilds the saved world in the given enemy layout. Call before the
+    // world is handed to a simulation thread.
+    public static WorldSnapshot load(Path path, boolean structureOfArrays) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a world snapshot: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a world snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            boolean chunked = (buffer.getInt() & FLAG_CHUNKED) != 0;
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            long seed = buffer.getLong();
+            int modeOrdinal = buffer.getInt();
+            if (modeOrdinal < 0 || modeOrdinal >= GameRandom.Mode.values().length) {
+                throw new IOException("Unknown random mode " + modeOrdinal + ": " + path);
+            }
+            GameRandom.Mode mode = GameRandom.Mode.values()[modeOrdinal];
+            long tick = buffer.getLong();
+            int playerX = buffer.getInt();
+            int playerY = buffer.getInt();
+            int count = buffer.getInt();
+            long spawnState = buffer.getLong();
+            if (spawnState == 0) {
+                throw new IOException("Invalid spawn stream state: " + path);
+            }
+
+            if (width <= 0 || height <= 0 || count < 0) {
+                throw new IOException("Invalid snapshot header: " + path);
+            }
+            long expected = HEADER_BYTES + (long) count * ENEMY_BYTES
+                    + (chunked ? 0 : (long) width * height);
+            if (size != expected) {
+                throw new IOException("Truncated snapshot: " + path);
+            }
+            if (!inBounds(playerX, playerY, width, height)) {
+                throw new IOException("Player outside the map: " + path);
+            }
+            checkEnemies(buffer, count, width, height, path);
+            if (!chunked) {
+                checkCells(buffer, HEADER_BYTES + count * ENEMY_BYTES, width * height, path);
+            }
+
+            WorldMap map;
+            if (chunked) {
+                int activeRadius = buffer.getInt();
+                long budgetBytes = buffer.getLong();
+                long mapSeed = buffer.getLong();
+                map = new ChunkedWorldMap(width, height, mapSeed, activeRadius, budgetBytes);
+            } else {
+                TileMap tiles = new TileMap(width, height);
+                ByteBuffer cells = buffer.duplicate();
+                cells.position(HEADER_BYTES + count * ENEMY_BYTES);
+                tiles.readCells(cells);
+                map = tiles;
+            }
+
+            GameWorld world = new GameWorld(map, structureOfArrays, new GameRandom(seed, mode),
+                    new Player(playerX, playerY));
+            world.setSpawnState(spawnState);
+            buffer.position(HEADER_BYTES);
+            world.getEnemies().readColumns(buffer, count);
+            world.publishRestoredEnemies(0);
+            return new WorldSnapshot(world, tick);
+        }
+    }
+
+    // The stores and the tile map index tables by these values, so a corrupt
+    // file, or one saved with types this build does not have, is refused
+    // here rather than failing halfway through building the world
+    private static void checkEnemies(ByteBuffer buffer, int count, int width, int height, Path path) throws IOException {
+        int yBase = HEADER_BYTES + count * Integer.BYTES;
+        int directionBase = yBase + count * Integer.BYTES + count * Short.BYTES;
+        int typeBase = directionBase + count;
+        int types = EnemyType.count();
+        for (int i = 0; i < count; i++) {
+            int x = buffer.getInt(HEADER_BYTES + i * Integer.BYTES);
+            int y = buffer.getInt(yBase + i * Integer.BYTES);
+            if (!inBounds(x, y, width, height)) {
+                throw new IOException("Enemy " + i + " at (" + x + ", " + y + ") is outside the map: " + path);
+            }
+            int direction = buffer.get(directionBase + i);
+            if (direction < 0 || direction > 3) {
+                throw new IOException("Enemy " + i + " has invalid direction " + direction + ": " + path);
+            }
+            int typeId = buffer.get(typeBase + i) & 0xFF;
+            if (typeId >= types) {
+                throw new IOException("Enemy " + i + " has type " + typeId + " but only " + types
+                        + " enemy types are defined: " + path);
+            }
+        }
+    }
+
+    private static void checkCells(ByteBuffer buffer, int offset, int cells, Path path) throws IOException {
+        int types = TileType.count();
+        for (int i = 0; i < cells; i++) {
+            int id = buffer.get(offset + i);
+            if (id < 0 || id >= types) {
+                throw new IOException("Tile " + i + " has invalid type " + id + ": " + path);
+            }
+        }
+    }
+
+    private static boolean inBounds(int x, int y, int width, int height) {
+        return x >= 0 && y >= 0 && x < (long) width * 16 && y < (long) height * 16;
+    }
+}
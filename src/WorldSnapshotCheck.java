@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Headless check that WorldSnapshot.load refuses damaged files with an
+// IOException instead of failing while it builds the world. Saves a small
+// world, then loads copies with one value broken at a time:
+//
+//   java -Djava.awt.headless=true -cp out WorldSnapshotCheck
+//
+// Exits with status 1 if any copy loads or fails some other way.
+public class WorldSnapshotCheck {
+    // Must match WorldSnapshot's layout
+    private static final int HEADER_BYTES = 128;
+    private static final int ENEMIES = 100;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        GameWorld world = new GameWorld(40, 30, true, new GameRandom(1));
+        world.spawnEnemies(ENEMIES - world.getEntities().size());
+        world.applyPendingSpawns();
+        int count = world.getEntities().size();
+
+        Path saved = Files.createTempFile("snapshot", ".bin");
+        Path broken = Files.createTempFile("snapshot-broken", ".bin");
+        try {
+            WorldSnapshot.save(world, 0, saved);
+            byte[] original = Files.readAllBytes(saved);
+
+            int yBase = HEADER_BYTES + count * Integer.BYTES;
+            int directionBase = yBase + count * Integer.BYTES + count * Short.BYTES;
+            int typeBase = directionBase + count;
+            int cellBase = typeBase + 2 * count;
+
+            expectLoads("unchanged", saved);
+            expectRefused("enemy type past the last EnemyType", original, broken,
+                    file -> file.put(typeBase + count / 2, (byte) EnemyType.count()));
+            expectRefused("enemy type 255", original, broken, file -> file.put(typeBase, (byte) 255));
+            expectRefused("enemy direction 7", original, broken, file -> file.put(directionBase, (byte) 7));
+            expectRefused("enemy x outside the map", original, broken,
+                    file -> file.putInt(HEADER_BYTES, 40 * 16));
+            expectRefused("enemy y negative", original, broken, file -> file.putInt(yBase + 4, -1));
+            expectRefused("tile type past the last TileType", original, broken,
+                    file -> file.put(cellBase + 5, (byte) TileType.count()));
+        } finally {
+            Files.deleteIfExists(saved);
+            Files.deleteIfExists(broken);
+        }
+
+        System.out.println(failures == 0 ? "All snapshot checks passed" : failures + " snapshot checks failed");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private interface Damage {
+        void apply(ByteBuffer file);
+    }
+
+    private static void expectLoads(String name, Path path) {
+        try {
+            WorldSnapshot.load(path, true);
+            System.out.println("ok   " + name + ": loaded");
+        } catch (Exception e) {
+            fail(name + ": " + e);
+        }
+    }
+
+    private static void expectRefused(String name, byte[] original, Path path, Damage damage) throws IOException {
+        ByteBuffer file = ByteBuffer.wrap(original.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        damage.apply(file);
+        Files.write(path, file.array());
+        for (boolean structureOfArrays : new boolean[]{true, false}) {
+            try {
+                WorldSnapshot.load(path, structureOfArrays);
+                fail(name + ": loaded");
+            } catch (IOException e) {
+                System.out.println("ok   " + name + ": " + e.getMessage().replace(path.toString(), "<file>"));
+            } catch (RuntimeException e) {
+                fail(name + ": " + e);
+            }
+        }
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL " + message);
+        failures++;
+    }
+}
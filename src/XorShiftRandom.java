@@ -0,0 +1,47 @@
+// xorshift64* generator. One long of state, so reseeding it for every
+// entity is just a field write.
+public final class XorShiftRandom implements RandomStream {
+    private long state;
+
+    public XorShiftRandom(long seed) {
+        reseed(seed);
+    }
+
+    @Override
+    public void reseed(long seed) {
+        // State must never be zero
+        long mixed = GameRandom.mix(seed);
+        state = mixed != 0 ? mixed : 0x9E3779B97F4A7C15L;
+    }
+
+    // Raw state, for saving a stream mid-run; restoring it with setState
+    // continues the exact same sequence
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        if (state == 0) {
+            throw new IllegalArgumentException("xorshift state must not be zero");
+        }
+        this.state = state;
+    }
+
+    private long nextLong() {
+        state ^= state >>> 12;
+        state ^= state << 25;
+        state ^= state >>> 27;
+        return state * 0x2545F4914F6CDD1DL;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        // Multiply-shift of the top 31 bits; the bias is negligible for small bounds
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,38 @@
+package metrics;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+// Records the duration of every stop-the-world collection, in nanoseconds
+// (the VM reports whole milliseconds). Concurrent cycles of G1, ZGC and
+// Shenandoah run beside the application, so they are left out.
+public final class GcPauses {
+    private final Histogram pauses = new Histogram();
+
+    public GcPauses() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(collector instanceof NotificationEmitter) || isConcurrent(collector.getName())) {
+                continue;
+            }
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    GarbageCollectionNotificationInfo info =
+                            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    pauses.record(info.getGcInfo().getDuration() * 1_000_000);
+                }
+            }, null, null);
+        }
+    }
+
+    private static boolean isConcurrent(String collectorName) {
+        return collectorName.contains("Concurrent") || collectorName.contains("Cycles");
+    }
+
+    public Histogram getPauses() {
+        return pauses;
+    }
+}
@@ -0,0 +1,90 @@
+package metrics;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+// Measurements shared by the flyweight and noflyweight memory views:
+// retained size of image rasters, shallow object sizes for the running VM's
+// layout, and live heap as of the last garbage collection.
+public final class MemoryMetrics {
+    private static final boolean COMPRESSED_OOPS = vmFlag("UseCompressedOops", true);
+    private static final boolean COMPRESSED_CLASS_POINTERS = vmFlag("UseCompressedClassPointers", true);
+
+    public static final int REFERENCE_BYTES = COMPRESSED_OOPS ? 4 : 8;
+    public static final int HEADER_BYTES = COMPRESSED_CLASS_POINTERS ? 12 : 16;
+
+    private MemoryMetrics() {
+    }
+
+    // Bytes held by the pixel data of an image; 0 if it is not a BufferedImage
+    public static long imageBytes(Image image) {
+        if (!(image instanceof BufferedImage)) {
+            return 0;
+        }
+        DataBuffer buffer = ((BufferedImage) image).getRaster().getDataBuffer();
+        long elementBytes = DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+        return (long) buffer.getSize() * buffer.getNumBanks() * elementBytes;
+    }
+
+    // Shallow size of an object with the given fields, padded to 8 bytes
+    public static long shallowSize(int references, int primitiveBytes) {
+        return align(HEADER_BYTES + (long) references * REFERENCE_BYTES + primitiveBytes);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // Heap in use right after the most recent collection of each pool, i.e.
+    // live data without the garbage Runtime.totalMemory() - freeMemory() counts.
+    // Returns -1 until the collector has run at least once.
+    public static long liveHeapAfterGc() {
+        long collections = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, collector.getCollectionCount());
+        }
+        if (collections == 0) {
+            return -1;
+        }
+
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    // Bytes allocated so far by the calling thread, or -1 if the VM does not
+    // track it
+    public static long threadAllocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static boolean vmFlag(String name, boolean fallback) {
+        try {
+            HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            return bean != null ? Boolean.parseBoolean(bean.getVMOption(name).getValue()) : fallback;
+        } catch (RuntimeException e) {
+            return fallback;
+        }
+    }
+}
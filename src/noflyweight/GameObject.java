@@ -12,6 +12,10 @@ public abstract class GameObject {
         this.sprite = sprite;
     }
 
+    public Sprite getSprite() {
+        return sprite;
+    }
+
     public void draw(Graphics g) {
         g.drawImage(sprite.getImage(), x, y, null);
     }
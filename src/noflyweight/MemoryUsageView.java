@@ -1,8 +1,11 @@
 package noflyweight;
 
+import metrics.MemoryMetrics;
+
 import javax.swing.*;
 import java.awt.*;
 import java.text.NumberFormat;
+import java.util.List;
 
 public class MemoryUsageView extends JPanel {
     private final GameWorld world;
@@ -11,7 +14,7 @@ public class MemoryUsageView extends JPanel {
 
     public MemoryUsageView(GameWorld world) {
         this.world = world;
-        setPreferredSize(new Dimension(300, 150));
+        setPreferredSize(new Dimension(300, 180));
         setBackground(Color.BLACK);
         setBorder(BorderFactory.createLineBorder(Color.WHITE));
     }
@@ -23,7 +26,20 @@ public class MemoryUsageView extends JPanel {
         g.setColor(Color.WHITE);
         g.setFont(new Font("Monospaced", Font.BOLD, 12));
 
-        int totalObjects = world.getWidth() * world.getHeight() + 1 + world.getEntities().size();
+        List<GameObject> entities = world.getEntities();
+        int totalObjects = world.getWidth() * world.getHeight() + 1 + entities.size();
+
+        // Measured pixel data: every object here carries its own sprite image
+        long spriteBytes = MemoryMetrics.imageBytes(world.getPlayer().getSprite().getImage());
+        for (Tile[] row : world.getMap()) {
+            for (Tile tile : row) {
+                spriteBytes += MemoryMetrics.imageBytes(tile.getSprite().getImage());
+            }
+        }
+        for (GameObject entity : entities) {
+            spriteBytes += MemoryMetrics.imageBytes(entity.getSprite().getImage());
+        }
+        long liveHeap = MemoryMetrics.liveHeapAfterGc();
 
         // Calculate memory usage
         long usedMemory = runtime.totalMemory() - runtime.freeMemory();
@@ -37,7 +53,12 @@ public class MemoryUsageView extends JPanel {
         g.drawString("Total game objects: " + totalObjects, 10, y);
         y += 15;
         g.drawString("Unique sprite objects: " + loadedSprites, 10, y);
+        y += 15;
+        g.drawString("Sprite pixels: " + format.format(spriteBytes / 1024) + " KB", 10, y);
         y += 20;
+        g.drawString("Live heap after last GC: "
+                + (liveHeap < 0 ? "no GC yet" : format.format(liveHeap / 1024 / 1024) + " MB"), 10, y);
+        y += 15;
         g.drawString("Current memory: " + (usedMemory / 1024 / 1024) + " MB", 10, y);
 
         // Draw memory bar